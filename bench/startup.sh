@@ -0,0 +1,92 @@
+#!/usr/bin/env bash
+#
+# Misst die Kaltstartzeit bis zum ersten erfolgreichen Request (GET /filters -> 200), bis zur Readiness
+# (/q/health/ready, nach dem Warm-up) und den RSS danach, je Variante als Median über RUNS Starts.
+#
+#   jvm-migrate  Fast-Jar, Liquibase beim Start (bisheriges Verhalten)
+#   jvm          Fast-Jar, ohne Migrationen
+#   jvm-appcds   Fast-Jar, ohne Migrationen, mit AppCDS-Archiv (target/quarkus-app/app-cds.jsa)
+#   native       natives Binary (target/*-runner), ohne Migrationen
+#
+# Voraussetzungen: JDK 21, curl, erreichbare DB, gebaute Artefakte:
+#   ./mvnw package -DskipTests -Pappcds      (Fast-Jar + AppCDS; ohne Container: -Dquarkus.package.jar.appcds.use-container=false)
+#   ./mvnw package -DskipTests -Dnative      (nur für die Variante native)
+#
+#   bench/startup.sh
+#
+# Optional: VARIANTS ("jvm-migrate jvm jvm-appcds native"), RUNS (5), PORT (8080), BCRYPT_COST (12)
+# Vor den Messungen wird einmal migriert (MIGRATE_AT_START=true, quarkus.init-and-exit).
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+VARIANTS=${VARIANTS:-"jvm-migrate jvm jvm-appcds native"}
+RUNS=${RUNS:-5}
+PORT=${PORT:-8080}
+BASE="http://localhost:$PORT"
+APP_DIR=target/quarkus-app
+OUT=target/bench
+mkdir -p "$OUT"
+
+export PEPPER=${PEPPER:-bench}
+# feste Cost: die Kalibrierung beim Start soll die Messung nicht verfälschen
+export SECURITY_PASSWORD_BCRYPT_COST=${BCRYPT_COST:-12}
+
+command_for() {
+  case $1 in
+    jvm-migrate|jvm) echo "java -Dquarkus.http.port=$PORT -jar $APP_DIR/quarkus-run.jar" ;;
+    jvm-appcds)      echo "java -XX:SharedArchiveFile=$APP_DIR/app-cds.jsa -Xshare:on -Dquarkus.http.port=$PORT -jar $APP_DIR/quarkus-run.jar" ;;
+    native)          echo "$(ls target/*-runner 2>/dev/null | head -1) -Dquarkus.http.port=$PORT" ;;
+  esac
+}
+
+available() {
+  case $1 in
+    jvm-appcds) [[ -f $APP_DIR/app-cds.jsa ]] ;;
+    native)     ls target/*-runner > /dev/null 2>&1 ;;
+    *)          [[ -f $APP_DIR/quarkus-run.jar ]] ;;
+  esac
+}
+
+median() {
+  sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'
+}
+
+# Einmal vorab migrieren, damit alle Varianten denselben Schemastand vorfinden
+MIGRATE_AT_START=true java -Dquarkus.init-and-exit=true -jar "$APP_DIR/quarkus-run.jar" > "$OUT/startup-migrate.log" 2>&1
+
+printf '%-12s %10s %10s %10s\n' variant "first-req" "ready" "rss"
+for variant in $VARIANTS; do
+  if ! available "$variant"; then
+    printf '%-12s %s\n' "$variant" "übersprungen (Artefakt fehlt)"
+    continue
+  fi
+  migrate=false
+  [[ $variant == jvm-migrate ]] && migrate=true
+  : > "$OUT/startup-$variant.ms"
+  : > "$OUT/startup-$variant.ready"
+  : > "$OUT/startup-$variant.rss"
+
+  for _ in $(seq "$RUNS"); do
+    start=$(date +%s%N)
+    # shellcheck disable=SC2046
+    MIGRATE_AT_START=$migrate $(command_for "$variant") > "$OUT/startup-$variant.log" 2>&1 &
+    pid=$!
+    trap 'kill $pid 2>/dev/null || true' EXIT
+    until curl -sf -o /dev/null "$BASE/filters"; do
+      kill -0 "$pid" 2>/dev/null || { echo "$variant: Prozess beendet, siehe $OUT/startup-$variant.log" >&2; exit 1; }
+      sleep 0.01
+    done
+    echo $(( ($(date +%s%N) - start) / 1000000 )) >> "$OUT/startup-$variant.ms"
+    until curl -sf -o /dev/null "$BASE/q/health/ready"; do sleep 0.01; done
+    echo $(( ($(date +%s%N) - start) / 1000000 )) >> "$OUT/startup-$variant.ready"
+    ps -o rss= -p "$pid" | tr -d ' ' >> "$OUT/startup-$variant.rss"
+    kill "$pid"; wait "$pid" 2>/dev/null || true
+    trap - EXIT
+  done
+
+  printf '%-12s %8s ms %8s ms %7s MB\n' "$variant" \
+    "$(median < "$OUT/startup-$variant.ms")" \
+    "$(median < "$OUT/startup-$variant.ready")" \
+    "$(( $(median < "$OUT/startup-$variant.rss") / 1024 ))"
+done
@@ -0,0 +1,55 @@
+#!/usr/bin/env bash
+#
+# Vergleicht Durchsatz und p99-Latenz der blockierenden Endpoints im Worker-Pool-Modus
+# (quarkus.virtual-threads.enabled=false) und im Virtual-Thread-Modus.
+#
+# Voraussetzungen: JDK 21, hey (https://github.com/rakyll/hey), jq, erreichbare DB,
+# gebautes Uber-Jar:  ./mvnw package -DskipTests -Dquarkus.package.jar.type=uber-jar
+#
+#   BENCH_EMAIL=alice@example.com BENCH_PASSWORD=... bench/virtual-threads.sh
+#
+# Optional: CONCURRENCY (200), DURATION (30s), PORT (8080), JAR, PATHS
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+JAR=${JAR:-$(ls target/*-runner.jar | head -1)}
+EMAIL=${BENCH_EMAIL:?BENCH_EMAIL fehlt}
+PASSWORD=${BENCH_PASSWORD:?BENCH_PASSWORD fehlt}
+CONCURRENCY=${CONCURRENCY:-200}
+DURATION=${DURATION:-30s}
+PORT=${PORT:-8080}
+PATHS=${PATHS:-"/users/me /users/preferences/map"}
+BASE="http://localhost:$PORT"
+OUT=target/bench
+mkdir -p "$OUT"
+
+run_mode() {
+  local mode=$1 vt=$2
+  java -Dquarkus.http.port="$PORT" -Dquarkus.virtual-threads.enabled="$vt" \
+       -jar "$JAR" > "$OUT/$mode.log" 2>&1 &
+  local pid=$!
+  trap 'kill $pid 2>/dev/null || true' EXIT
+
+  until curl -sf -o /dev/null "$BASE/q/health/ready"; do sleep 0.5; done
+
+  local token
+  token=$(curl -sf -H 'Content-Type: application/json' \
+      -d "{\"email\":\"$EMAIL\",\"password\":\"$PASSWORD\"}" "$BASE/auth/login" | jq -r .token)
+
+  for path in $PATHS; do
+    # Aufwärmen, dann messen
+    hey -z 5s -c "$CONCURRENCY" -H "Authorization: Bearer $token" "$BASE$path" > /dev/null
+    hey -z "$DURATION" -c "$CONCURRENCY" -H "Authorization: Bearer $token" "$BASE$path" > "$OUT/$mode-${path//\//_}.txt"
+    printf '%-8s %-28s %12s req/s   p99 %ss\n' "$mode" "$path" \
+      "$(awk '/Requests\/sec/ {print $2}' "$OUT/$mode-${path//\//_}.txt")" \
+      "$(awk '/99% in/ {print $3}' "$OUT/$mode-${path//\//_}.txt")"
+  done
+
+  grep -h "Virtual thread pinned" "$OUT/$mode.log" || true
+  kill "$pid"; wait "$pid" 2>/dev/null || true
+  trap - EXIT
+}
+
+run_mode worker false
+run_mode virtual true
@@ -0,0 +1,47 @@
+package com.elysion.application.user;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link UserService#generateJwt(UUID, String, String)}: Claims bauen und RS256 signieren.
+ * Liegt im Paket des Service, um ihn ohne CDI mit einer Test-Registry zu initialisieren;
+ * der Signaturschlüssel kommt wie im Service aus {@code META-INF/resources/privateKey.pem}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {
+        "-Dsmallrye.jwt.sign.key.location=META-INF/resources/privateKey.pem",
+        "-Dsmallrye.jwt.new-token.issuer=elysion-user-service",
+        "-Dsmallrye.jwt.new-token.audience=elysion-product-service",
+        "-Dsmallrye.jwt.sign.key.id=1"
+})
+@State(Scope.Benchmark)
+public class JwtSigningBenchmark {
+
+    private UserService userService;
+    private UUID userId;
+
+    @Setup
+    public void setUp() {
+        userService = new UserService();
+        userService.registry = new SimpleMeterRegistry();
+        userService.initMetrics();
+        userId = UUID.randomUUID();
+    }
+
+    @Benchmark
+    public String user() {
+        return userService.generateJwt(userId, "alice@example.com", "User");
+    }
+
+    @Benchmark
+    public String seller() {
+        return userService.generateJwt(userId, "seller@example.com", "Seller");
+    }
+}
@@ -0,0 +1,86 @@
+package com.elysion.benchmarks;
+
+import com.elysion.domain.user.Importance;
+import com.elysion.domain.user.SustainabilityFilter;
+import com.elysion.domain.user.User;
+import com.elysion.interfaces.user.UserPreferenceResource.PreferenceDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson-Serialisierung der Response-Typen von {@code /users/me}, {@code /users/preferences} und {@code /filters}.
+ * Der ObjectMapper entspricht den Quarkus-Defaults (Module per Classpath, ISO-Datumsangaben).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+    @Param({"10", "50"})
+    public int size;
+
+    private ObjectMapper mapper;
+    private User user;
+    private List<PreferenceDTO> preferences;
+    private List<SustainabilityFilter> filters;
+
+    @Setup
+    public void setUp() {
+        mapper = JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+
+        user = new User(UUID.randomUUID(), "alice@example.com", "$2a$12$M8Q35jYDH0VxrQEAHR4OOOyNKG8G5SZSmMzhURXSgvYv8FY4oDvya",
+                "bEg+eoewDQ9jlY7Jom9mMQ==", "User", OffsetDateTime.now());
+        user.firstName = "Alice";
+        user.lastName = "Example";
+        user.active = true;
+
+        Importance[] levels = Importance.values();
+        preferences = new ArrayList<>(size);
+        filters = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            preferences.add(PreferenceDTO.of("filter-" + i, levels[i % levels.length]));
+            SustainabilityFilter f = new SustainabilityFilter();
+            f.id = UUID.randomUUID();
+            f.key = "filter-" + i;
+            f.label = "Filter " + i;
+            f.icon = "leaf";
+            f.description = "Products made from organic materials without harmful chemicals";
+            f.examples = "Organic cotton, recycled packaging";
+            f.bitIndex = i;
+            f.importance = levels[i % levels.length];
+            filters.add(f);
+        }
+    }
+
+    @Benchmark
+    public byte[] user() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public byte[] preferenceList() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(preferences);
+    }
+
+    @Benchmark
+    public byte[] filterList() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(filters);
+    }
+}
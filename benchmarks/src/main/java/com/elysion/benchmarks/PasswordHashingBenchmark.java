@@ -0,0 +1,50 @@
+package com.elysion.benchmarks;
+
+import com.elysion.security.Argon2idPasswordHashAlgorithm;
+import com.elysion.security.BCryptPasswordHashAlgorithm;
+import com.elysion.security.PasswordHashAlgorithm;
+import com.elysion.security.PasswordService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashen und Prüfen je Verfahren und Kostenstufe (so wie {@link PasswordService} sie nach der Kalibrierung nutzt).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordHashingBenchmark {
+
+    private static final String SECRET = "Str0ngP@ssword!" + "c2FsdHNhbHRzYWx0c2FsdA==" + "pepper";
+
+    /** bcrypt:&lt;cost&gt; bzw. argon2id:&lt;iterations&gt; (64 MiB, 1 Lane wie in application.properties) */
+    @Param({"bcrypt:10", "bcrypt:12", "bcrypt:14", "argon2id:2", "argon2id:3", "argon2id:4"})
+    public String algorithm;
+
+    private PasswordHashAlgorithm algo;
+    private String storedHash;
+
+    @Setup
+    public void setUp() {
+        String[] parts = algorithm.split(":");
+        int cost = Integer.parseInt(parts[1]);
+        algo = BCryptPasswordHashAlgorithm.ID.equals(parts[0])
+                ? new BCryptPasswordHashAlgorithm(cost)
+                : new Argon2idPasswordHashAlgorithm(65536, cost, 1);
+        storedHash = algo.hash(SECRET);
+    }
+
+    @Benchmark
+    public String hash() {
+        return algo.hash(SECRET);
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return algo.verify(SECRET, storedHash);
+    }
+}
@@ -0,0 +1,48 @@
+package com.elysion.benchmarks;
+
+import com.elysion.security.PasswordService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PasswordService} selbst: Pepper, Verfahrenswahl und Default-Verfahren (BCrypt, Cost 12).
+ * Ohne CDI läuft das Hashing inline statt auf dem Hashing-Pool. Braucht die Umgebungsvariable {@code PEPPER}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordServiceBenchmark {
+
+    private static final String PASSWORD = "Str0ngP@ssword!";
+
+    private PasswordService passwordService;
+    private String salt;
+    private String storedHash;
+
+    @Setup
+    public void setUp() {
+        passwordService = new PasswordService();
+        salt = passwordService.generateSalt();
+        storedHash = passwordService.hashPassword(PASSWORD, salt);
+    }
+
+    @Benchmark
+    public String hashPassword() {
+        return passwordService.hashPassword(PASSWORD, salt);
+    }
+
+    @Benchmark
+    public boolean verifyPassword() {
+        return passwordService.verifyPassword(PASSWORD, salt, storedHash);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public String generateSalt() {
+        return passwordService.generateSalt();
+    }
+}
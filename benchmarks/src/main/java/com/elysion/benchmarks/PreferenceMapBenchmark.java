@@ -0,0 +1,60 @@
+package com.elysion.benchmarks;
+
+import com.elysion.domain.user.Importance;
+import com.elysion.domain.user.PreferenceVector;
+import com.elysion.domain.user.UserPreferenceView;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aufbau der Map filterKey -> Importance aus {@code getPreferenceMap}: einmal aus dem gepackten
+ * Vektor (Normalfall), einmal per Stream-Collect aus der Projektion (Fallback ohne Vektor).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PreferenceMapBenchmark {
+
+    /** Anzahl Filter im Katalog; jeder zweite ist gesetzt. */
+    @Param({"10", "50", "200"})
+    public int filters;
+
+    private PreferenceVector vector;
+    private Map<Integer, String> keyByIndex;
+    private List<UserPreferenceView> views;
+
+    @Setup
+    public void setUp() {
+        Importance[] levels = Importance.values();
+        vector = PreferenceVector.empty();
+        keyByIndex = new HashMap<>();
+        views = new ArrayList<>();
+        for (int i = 0; i < filters; i++) {
+            String key = "filter-" + i;
+            keyByIndex.put(i, key);
+            if (i % 2 == 0) {
+                vector.set(i, levels[i % levels.length]);
+                views.add(new UserPreferenceView(key, levels[i % levels.length]));
+            }
+        }
+        keyByIndex = Map.copyOf(keyByIndex);
+    }
+
+    @Benchmark
+    public Map<String, Importance> fromVector() {
+        return PreferenceVector.of(vector.toBytes()).toMap(keyByIndex);
+    }
+
+    @Benchmark
+    public Map<String, Importance> fromViews() {
+        return UserPreferenceView.toMap(views);
+    }
+}
@@ -0,0 +1,294 @@
+package com.elysion.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Startet eine eingebettete PostgreSQL-Instanz und den gebauten Service (quarkus-run.jar) als eigenen Prozess dagegen.
+ * <p>
+ * Der Service läuft mit Produktionskonfiguration, abweichend nur: DB-URLs, Login-Drosselung aus
+ * (alle Requests kommen von einer IP), Mock-Mailer und angehaltener Outbox-Versand – die Aktivierungslinks
+ * bleiben so in {@code mail_outbox} liegen und werden von dort gelesen, wie ein User sie aus der Mail hätte.
+ * <p>
+ * Gatling darf auf seinen Engine-Threads nicht blockieren. Die Simulation holt Aktivierungs-Tokens deshalb per
+ * HTTP von {@link #tokenUrl} ab: ein kleiner Server mit eigenem Thread-Pool, der {@code mail_outbox} über einen
+ * Pool von {@link #POOL_SIZE} JDBC-Verbindungen liest.
+ */
+final class ServiceUnderTest implements AutoCloseable {
+
+    static final String PASSWORD = "L0adTest-Passw0rd!";
+
+    /** Threads des Token-Servers und zugleich JDBC-Verbindungen zur eingebetteten DB. */
+    private static final int POOL_SIZE = 4;
+
+    private static final Pattern TOKEN_IN_LINK = Pattern.compile("token=([0-9a-fA-F-]{36})");
+    private static final Pattern TOKEN_IN_JSON = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+    private static final String[][] FILTERS = {
+            {"bio", "Bio/Organic"}, {"ethical-work", "Ethical Work Enforced"}, {"fair-trade", "Fair Trade"},
+            {"recycled", "Recycled Materials"}, {"vegan", "Vegan"}, {"local", "Locally Produced"},
+            {"low-co2", "Low CO2 Footprint"}, {"repairable", "Repairable"}
+    };
+
+    private final EmbeddedPostgres postgres;
+    private final Process service;
+    private final BlockingQueue<Connection> connections = new ArrayBlockingQueue<>(POOL_SIZE);
+    private final HttpClient http = HttpClient.newHttpClient();
+    private final ExecutorService tokenThreads = Executors.newFixedThreadPool(POOL_SIZE, r -> {
+        Thread t = new Thread(r, "loadtest-token-server");
+        t.setDaemon(true);
+        return t;
+    });
+    private HttpServer tokenServer;
+    final String baseUrl;
+    /** {@code GET <tokenUrl>?email=...} liefert das Aktivierungs-Token als Text (404, wenn es keins gibt). */
+    String tokenUrl;
+
+    private ServiceUnderTest(EmbeddedPostgres postgres, Process service, String baseUrl) {
+        this.postgres = postgres;
+        this.service = service;
+        this.baseUrl = baseUrl;
+    }
+
+    static ServiceUnderTest start() throws Exception {
+        EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+        int dbPort = postgres.getPort();
+        int httpPort = freePort();
+
+        String jar = System.getProperty("service.jar", "../target/quarkus-app/quarkus-run.jar");
+        if (!new File(jar).isFile()) {
+            postgres.close();
+            throw new IllegalStateException("Service jar not found: " + jar + " (./mvnw package -DskipTests)");
+        }
+        List<String> cmd = new ArrayList<>(List.of(
+                ProcessHandle.current().info().command().orElse("java"),
+                "-Dquarkus.http.port=" + httpPort,
+                "-Dquarkus.datasource.jdbc.url=jdbc:postgresql://localhost:" + dbPort + "/postgres",
+                "-Dquarkus.datasource.reactive.url=postgresql://localhost:" + dbPort + "/postgres",
+                "-Dquarkus.datasource.username=postgres",
+                "-Dquarkus.datasource.password=postgres",
+                "-Dsecurity.login.throttle.enabled=false",
+                "-Dquarkus.mailer.mock=true",
+                "-Dmail.outbox.enabled=false"));
+        cmd.addAll(List.of(System.getProperty("service.jvm-args", "").split("\\s+")).stream()
+                .filter(a -> !a.isBlank()).toList());
+        cmd.addAll(List.of("-jar", jar));
+
+        File log = new File("target/service.log");
+        log.getParentFile().mkdirs();
+        ProcessBuilder pb = new ProcessBuilder(cmd).redirectErrorStream(true).redirectOutput(log);
+        pb.environment().put("PEPPER", "loadtest");
+        Process service = pb.start();
+
+        ServiceUnderTest sut = new ServiceUnderTest(postgres, service, "http://localhost:" + httpPort);
+        try {
+            for (int i = 0; i < POOL_SIZE; i++) {
+                sut.connections.add(postgres.getPostgresDatabase().getConnection());
+            }
+            sut.startTokenServer();
+            sut.awaitReady(Duration.ofMinutes(2));
+            sut.seedFilters();
+        } catch (Exception e) {
+            sut.close();
+            throw e;
+        }
+        return sut;
+    }
+
+    /**
+     * Aktivierungs-Token des Users aus der (nicht versendeten) Outbox-Mail. Blockiert auf JDBC – nur vom
+     * Setup-Thread oder vom Token-Server aufrufen, nie aus einem Gatling-{@code exec}.
+     */
+    String activationToken(String email) throws SQLException, InterruptedException {
+        Connection connection = connections.take();
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT body FROM mail_outbox WHERE recipient = ? AND kind = 'ACTIVATION' ORDER BY created_at DESC LIMIT 1")) {
+            ps.setString(1, email);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return null;
+                Matcher m = TOKEN_IN_LINK.matcher(rs.getString(1));
+                return m.find() ? m.group(1) : null;
+            }
+        } finally {
+            connections.add(connection);
+        }
+    }
+
+    /** Registriert und aktiviert {@code count} User über die echte API; Feeder-Einträge mit email/password. */
+    List<Map<String, Object>> seedUsers(int count) throws Exception {
+        List<Map<String, Object>> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String email = register("lt-seed-" + i);
+            users.add(Map.of("email", email, "password", PASSWORD));
+        }
+        return users;
+    }
+
+    @Override
+    public void close() {
+        service.destroy();
+        if (tokenServer != null) tokenServer.stop(0);
+        tokenThreads.shutdownNow();
+        try {
+            for (Connection connection : connections) {
+                connection.close();
+            }
+            postgres.close();
+        } catch (SQLException | IOException e) {
+            // Aufräumen beim Beenden, nichts mehr zu tun
+        }
+    }
+
+    // ======== intern ========
+
+    private void startTokenServer() throws IOException {
+        tokenServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        tokenServer.setExecutor(tokenThreads);
+        tokenServer.createContext("/activation-token", this::serveToken);
+        tokenServer.start();
+        tokenUrl = "http://localhost:" + tokenServer.getAddress().getPort() + "/activation-token";
+    }
+
+    private void serveToken(HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getRawQuery();
+        String email = query != null && query.startsWith("email=")
+                ? URLDecoder.decode(query.substring("email=".length()), StandardCharsets.UTF_8) : "";
+        String token;
+        try {
+            token = activationToken(email);
+        } catch (SQLException | InterruptedException e) {
+            token = null;
+        }
+        byte[] body = (token != null ? token : "No activation token for " + email).getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(token != null ? 200 : 404, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private void awaitReady(Duration timeout) throws Exception {
+        Instant deadline = Instant.now().plus(timeout);
+        while (Instant.now().isBefore(deadline)) {
+            if (!service.isAlive()) {
+                throw new IllegalStateException("Service exited, see target/service.log");
+            }
+            try {
+                if (get("/q/health/ready", null).statusCode() == 200) return;
+            } catch (IOException e) {
+                // noch nicht gestartet
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException("Service not ready after " + timeout + ", see target/service.log");
+    }
+
+    /**
+     * Legt die Filter an (Liquibase seedet keine) und lädt den Katalog neu. Dafür wird ein User registriert,
+     * per SQL zum Admin gemacht und {@code POST /admin/filters/reload} aufgerufen.
+     */
+    private void seedFilters() throws Exception {
+        Connection connection = connections.take();
+        try (Statement st = connection.createStatement()) {
+            for (String[] f : FILTERS) {
+                st.addBatch("INSERT INTO sustainability_filter (id, filter_key, label, icon, description, examples, importance) VALUES ('"
+                        + UUID.randomUUID() + "', '" + f[0] + "', '" + f[1] + "', 'leaf', '" + f[1] + "', '" + f[1]
+                        + "', 'IMPORTANT') ON CONFLICT DO NOTHING");
+            }
+            st.executeBatch();
+        } finally {
+            connections.add(connection);
+        }
+        String admin = register("lt-admin");
+        connection = connections.take();
+        try (PreparedStatement ps = connection.prepareStatement("UPDATE users SET role = 'Admin' WHERE email = ?")) {
+            ps.setString(1, admin);
+            ps.executeUpdate();
+        } finally {
+            connections.add(connection);
+        }
+        String jwt = token(post("/auth/login", "{\"email\":\"" + admin + "\",\"password\":\"" + PASSWORD + "\"}", null));
+        HttpResponse<String> reload = post("/admin/filters/reload", "", jwt);
+        if (reload.statusCode() != 200) {
+            throw new IllegalStateException("Filter reload failed: " + reload.statusCode() + " " + reload.body());
+        }
+    }
+
+    /** Registrieren und Bestätigen über die API. */
+    private String register(String prefix) throws Exception {
+        String email = prefix + "-" + UUID.randomUUID() + "@example.com";
+        HttpResponse<String> res = post("/auth/register", "{\"email\":\"" + email + "\",\"password\":\"" + PASSWORD
+                + "\",\"firstName\":\"Load\",\"lastName\":\"Test\"}", null);
+        if (res.statusCode() != 201) {
+            throw new IllegalStateException("Register failed: " + res.statusCode() + " " + res.body());
+        }
+        String token = activationToken(email);
+        if (token == null) throw new IllegalStateException("No activation mail for " + email);
+        HttpResponse<String> confirm = get("/auth/confirm-email?token=" + token, null);
+        if (confirm.statusCode() != 200) {
+            throw new IllegalStateException("Confirm failed: " + confirm.statusCode() + " " + confirm.body());
+        }
+        return email;
+    }
+
+    private static String token(HttpResponse<String> res) {
+        Matcher m = TOKEN_IN_JSON.matcher(res.body());
+        if (res.statusCode() != 200 || !m.find()) {
+            throw new IllegalStateException("Login failed: " + res.statusCode() + " " + res.body());
+        }
+        return m.group(1);
+    }
+
+    private HttpResponse<String> get(String path, String jwt) throws IOException, InterruptedException {
+        return http.send(request(path, jwt).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path, String json, String jwt) throws IOException, InterruptedException {
+        return http.send(request(path, jwt)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(json))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest.Builder request(String path, String jwt) {
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(30));
+        if (jwt != null) b.header("Authorization", "Bearer " + jwt);
+        return b;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
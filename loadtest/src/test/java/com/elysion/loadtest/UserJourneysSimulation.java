@@ -0,0 +1,168 @@
+package com.elysion.loadtest;
+
+import io.gatling.javaapi.core.ChainBuilder;
+import io.gatling.javaapi.core.OpenInjectionStep;
+import io.gatling.javaapi.core.PopulationBuilder;
+import io.gatling.javaapi.core.ScenarioBuilder;
+import io.gatling.javaapi.core.Simulation;
+import io.gatling.javaapi.http.HttpProtocolBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static io.gatling.javaapi.core.CoreDsl.*;
+import static io.gatling.javaapi.http.HttpDsl.*;
+
+/**
+ * Realistische Nutzerpfade gegen den echten Service mit eingebetteter PostgreSQL ({@link ServiceUnderTest}).
+ * <p>
+ * Offenes Lastmodell: neue Nutzer kommen mit fester Rate an, unabhängig davon, wie schnell der Service
+ * antwortet – so werden Warteschlangen sichtbar statt durch langsamere Clients verdeckt.
+ * <ul>
+ *   <li>{@code onboarding}: Registrierung, Bestätigung, Ident-Login, Filter, erste Präferenzen</li>
+ *   <li>{@code returning}: Passwort-Login, Profil, Präferenzen lesen und ändern</li>
+ *   <li>{@code browse}: nur der öffentliche Filterkatalog</li>
+ * </ul>
+ * Raten (User/s), Dauer und Grenzwerte kommen aus System-Properties, siehe README.
+ */
+public class UserJourneysSimulation extends Simulation {
+
+    private static final double RATE_ONBOARDING = dbl("rate.onboarding", 2);
+    private static final double RATE_RETURNING = dbl("rate.returning", 10);
+    private static final double RATE_BROWSE = dbl("rate.browse", 30);
+    private static final int DURATION = Integer.getInteger("duration", 120);
+    private static final int RAMP = Integer.getInteger("ramp", 20);
+    private static final int SEED_USERS = Integer.getInteger("seed.users", 50);
+    private static final int MAX_P99_MS = Integer.getInteger("max.p99.ms", 1000);
+    private static final double MAX_ERROR_PCT = dbl("max.error.pct", 1);
+
+    private static final String[] IMPORTANCES = {"NOT_IMPORTANT", "SOMEWHAT_IMPORTANT", "IMPORTANT", "VERY_IMPORTANT"};
+
+    private final ServiceUnderTest sut = startService();
+
+    private final HttpProtocolBuilder protocol = http
+            .baseUrl(sut.baseUrl)
+            .acceptHeader("application/json")
+            .contentTypeHeader("application/json")
+            .shareConnections();
+
+    /** Filter laden und die Keys für spätere Präferenz-Requests merken. */
+    private final ChainBuilder filters = exec(http("GET /filters").get("/filters")
+            .check(status().is(200), jsonPath("$[*].key").findAll().saveAs("filterKeys")));
+
+    private final ChainBuilder preferences = exec(
+            http("GET /users/preferences").get("/users/preferences")
+                    .header("Authorization", "Bearer #{jwt}").check(status().is(200)),
+            http("GET /users/preferences/map").get("/users/preferences/map")
+                    .header("Authorization", "Bearer #{jwt}").check(status().is(200)));
+
+    private final ScenarioBuilder onboarding = scenario("onboarding")
+            .exec(session -> session.set("email", "lt-" + UUID.randomUUID() + "@example.com"))
+            .exec(http("POST /auth/register").post("/auth/register")
+                    .body(StringBody("{\"email\":\"#{email}\",\"password\":\"" + ServiceUnderTest.PASSWORD
+                            + "\",\"firstName\":\"Load\",\"lastName\":\"Test\"}"))
+                    .check(status().is(201)))
+            .exitHereIfFailed()
+            // Token per HTTP vom Token-Server (eigene Threads, eigener JDBC-Pool); silent: nicht in der Statistik
+            .exec(http("activation token").get(sut.tokenUrl + "?email=#{email}").silent()
+                    .check(status().is(200), bodyString().saveAs("activation")))
+            .exec(http("GET /auth/confirm-email").get("/auth/confirm-email?token=#{activation}")
+                    .check(status().is(200)))
+            .exec(http("POST /auth/login-ident").post("/auth/login-ident?token=#{activation}")
+                    .check(status().is(200), jsonPath("$.token").saveAs("jwt")))
+            .exitHereIfFailed()
+            .exec(filters)
+            .pause(1, 3)
+            .exec(session -> session.set("prefKey", pick(session.getList("filterKeys"))))
+            .exec(http("PUT /users/preferences/{key}").put("/users/preferences/#{prefKey}")
+                    .header("Authorization", "Bearer #{jwt}")
+                    .body(StringBody(session -> "{\"importance\":\"" + pick(List.of(IMPORTANCES)) + "\"}"))
+                    .check(status().is(200)))
+            .exec(preferences);
+
+    private final ScenarioBuilder returning = scenario("returning")
+            .feed(listFeeder(seedUsers()).circular())
+            .exec(http("POST /auth/login").post("/auth/login")
+                    .body(StringBody("{\"email\":\"#{email}\",\"password\":\"#{password}\"}"))
+                    .check(status().is(200), jsonPath("$.token").saveAs("jwt")))
+            .exitHereIfFailed()
+            .exec(http("GET /users/me").get("/users/me")
+                    .header("Authorization", "Bearer #{jwt}").check(status().is(200)))
+            .exec(preferences)
+            .pause(1, 3)
+            .exec(filters)
+            .exec(http("PUT /users/preferences").put("/users/preferences")
+                    .header("Authorization", "Bearer #{jwt}")
+                    .body(StringBody(session -> batchBody(session.getList("filterKeys"))))
+                    .check(status().is(200)));
+
+    private final ScenarioBuilder browse = scenario("browse")
+            .exec(filters);
+
+    {
+        List<PopulationBuilder> populations = new ArrayList<>();
+        addOpen(populations, onboarding, RATE_ONBOARDING);
+        addOpen(populations, returning, RATE_RETURNING);
+        addOpen(populations, browse, RATE_BROWSE);
+
+        setUp(populations)
+                .protocols(protocol)
+                .assertions(
+                        global().responseTime().percentile(99.0).lt(MAX_P99_MS),
+                        global().failedRequests().percent().lte(MAX_ERROR_PCT),
+                        forAll().failedRequests().percent().lte(MAX_ERROR_PCT));
+    }
+
+    @Override
+    public void after() {
+        sut.close();
+    }
+
+    // ======== intern ========
+
+    private static void addOpen(List<PopulationBuilder> populations, ScenarioBuilder scenario, double rate) {
+        if (rate <= 0) return;
+        OpenInjectionStep ramp = rampUsersPerSec(0).to(rate).during(RAMP);
+        OpenInjectionStep steady = constantUsersPerSec(rate).during(DURATION);
+        populations.add(scenario.injectOpen(ramp, steady));
+    }
+
+    private List<Map<String, Object>> seedUsers() {
+        try {
+            return sut.seedUsers(Math.max(SEED_USERS, 1));
+        } catch (Exception e) {
+            sut.close();
+            throw new IllegalStateException("Seeding users failed", e);
+        }
+    }
+
+    private static ServiceUnderTest startService() {
+        try {
+            return ServiceUnderTest.start();
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not start service under test", e);
+        }
+    }
+
+    /** Zwei bis drei zufällige Keys mit zufälliger Importance. */
+    private static String batchBody(List<Object> keys) {
+        StringBuilder sb = new StringBuilder("{");
+        int n = Math.min(keys.size(), 2 + (int) (Math.random() * 2));
+        for (int i = 0; i < n; i++) {
+            if (i > 0) sb.append(',');
+            sb.append('"').append(keys.get(i)).append("\":\"").append(pick(List.of(IMPORTANCES))).append('"');
+        }
+        return sb.append('}').toString();
+    }
+
+    private static <T> T pick(List<T> values) {
+        return values.get((int) (Math.random() * values.size()));
+    }
+
+    private static double dbl(String name, double def) {
+        String v = System.getProperty(name);
+        return v == null || v.isBlank() ? def : Double.parseDouble(v);
+    }
+}
@@ -0,0 +1,235 @@
+package com.elysion.application.user;
+
+import com.elysion.domain.user.MailOutbox;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.mailer.Mail;
+import io.quarkus.mailer.reactive.ReactiveMailer;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.scheduler.Scheduled;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.Session;
+import org.jboss.logging.Logger;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Verschickt Mails aus der Outbox ({@code mail_outbox}) im Hintergrund.
+ * <ul>
+ *   <li>Zeilen werden batchweise per {@code FOR UPDATE SKIP LOCKED} beansprucht; das Beanspruchen setzt
+ *       {@code next_attempt_at} auf eine Lease, so dass weder eine Sperre noch eine DB-Verbindung über
+ *       den SMTP-Versand gehalten wird und mehrere Instanzen parallel arbeiten können</li>
+ *   <li>ein Batch wird gleichzeitig über den {@link ReactiveMailer} verschickt, der die SMTP-Verbindungen
+ *       poolt ({@code quarkus.mailer.max-pool-size}, {@code keep-alive})</li>
+ *   <li>jede Mail wird einzeln abgeschlossen, sobald ihr Versand fertig ist: Erfolg löscht die Zeile, Fehler
+ *       planen mit exponentiellem Backoff neu ein; nach {@code max-attempts} bleibt die Zeile als {@code FAILED}
+ *       liegen, der Body (Klartext-Token-Link) wird dabei geschwärzt. {@code FAILED}-Zeilen löscht die
+ *       {@link UserTokenRetention} nach der Karenzzeit</li>
+ *   <li>wird ein Batch nicht innerhalb von {@code send-timeout} fertig, kehrt der Lauf trotzdem zurück; die
+ *       noch laufenden Sendungen schließen ihre Zeilen selbst ab. Jede Sendung wird spätestens kurz vor Ablauf
+ *       der Lease abgebrochen und als Fehler neu eingeplant, damit keine Zeile beansprucht werden kann, während
+ *       ihr Versand noch läuft</li>
+ * </ul>
+ * In dev/test läuft der Mailer gegen die In-Process-{@code MockMailbox} ({@code quarkus.mailer.mock}).
+ */
+@ApplicationScoped
+public class MailOutboxDispatcher {
+
+    private static final Logger LOG = Logger.getLogger(MailOutboxDispatcher.class);
+
+    private static final String CLAIM_SQL = """
+            UPDATE mail_outbox
+            SET attempts = attempts + 1, next_attempt_at = ?
+            WHERE id IN (
+                SELECT id FROM mail_outbox
+                WHERE status = 'PENDING' AND next_attempt_at <= ?
+                ORDER BY next_attempt_at
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            )
+            RETURNING id, recipient, subject, body, attempts
+            """;
+
+    /** Reserve zwischen Abbruch einer Sendung und Ablauf der Lease für den Abschluss der Zeile. */
+    private static final Duration COMPLETE_MARGIN = Duration.ofSeconds(15);
+
+    @ConfigProperty(name = "mail.outbox.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "mail.outbox.batch-size", defaultValue = "50")
+    int batchSize;
+
+    /** Obergrenze je Lauf, damit ein Rückstau den Scheduler-Thread nicht dauerhaft belegt. */
+    @ConfigProperty(name = "mail.outbox.max-batches", defaultValue = "20")
+    int maxBatches;
+
+    /** So lange gilt eine beanspruchte Zeile als in Arbeit; danach darf sie erneut beansprucht werden. */
+    @ConfigProperty(name = "mail.outbox.lease", defaultValue = "2m")
+    Duration lease;
+
+    @ConfigProperty(name = "mail.outbox.send-timeout", defaultValue = "30s")
+    Duration sendTimeout;
+
+    @ConfigProperty(name = "mail.outbox.max-attempts", defaultValue = "8")
+    int maxAttempts;
+
+    @ConfigProperty(name = "mail.outbox.backoff.base", defaultValue = "30s")
+    Duration backoffBase;
+
+    @ConfigProperty(name = "mail.outbox.backoff.max", defaultValue = "1h")
+    Duration backoffMax;
+
+    @Inject
+    ReactiveMailer mailer;
+
+    @Inject
+    MeterRegistry registry;
+
+    private record Claimed(UUID id, String recipient, String subject, String body, int attempts) {}
+
+    private Counter sent;
+    private Counter retried;
+    private Counter failed;
+    private Timer batchTimer;
+    private Duration sendLimit;
+
+    @PostConstruct
+    void init() {
+        sendLimit = lease.minus(COMPLETE_MARGIN);
+        if (sendTimeout.compareTo(sendLimit) > 0) {
+            throw new IllegalStateException("mail.outbox.send-timeout (" + sendTimeout
+                    + ") must be at least " + COMPLETE_MARGIN + " shorter than mail.outbox.lease (" + lease + ")");
+        }
+        sent = outcome("sent");
+        retried = outcome("retried");
+        failed = outcome("failed");
+        batchTimer = Timer.builder("mail.outbox.batch.duration")
+                .description("Dauer eines Outbox-Batches (Beanspruchen, Versand, Abschluss)")
+                .register(registry);
+    }
+
+    private Counter outcome(String outcome) {
+        return Counter.builder("mail.outbox.mails")
+                .description("Verarbeitete Outbox-Mails")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    @Scheduled(every = "${mail.outbox.poll-interval:2s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void dispatch() {
+        if (!enabled) return;
+        try {
+            for (int i = 0; i < maxBatches; i++) {
+                if (dispatchBatch() < batchSize) break;
+            }
+        } catch (RuntimeException e) {
+            LOG.error("Mail outbox dispatch failed", e);
+        }
+    }
+
+    /** @return Anzahl beanspruchter Zeilen */
+    int dispatchBatch() {
+        Timer.Sample sample = Timer.start(registry);
+        List<Claimed> batch = claim();
+        if (batch.isEmpty()) return 0;
+
+        // eigenständige Futures statt await() auf einem gemeinsamen Uni: ein Timeout bricht so keine Sendung ab,
+        // und jede schließt ihre Zeile auf einem Worker-Thread ab, sobald sie fertig ist
+        List<CompletableFuture<Void>> sends = new ArrayList<>(batch.size());
+        for (Claimed m : batch) {
+            sends.add(Uni.createFrom().deferred(() -> mailer.send(Mail.withText(m.recipient(), m.subject(), m.body())))
+                    .onItem().transform(v -> (String) null)
+                    .ifNoItem().after(sendLimit).failWith(() -> new TimeoutException("send exceeded " + sendLimit))
+                    .onFailure().recoverWithItem(e -> String.valueOf(e.getMessage()))
+                    .emitOn(Infrastructure.getDefaultWorkerPool())
+                    .invoke(error -> complete(m, error))
+                    .replaceWithVoid()
+                    .subscribeAsCompletionStage());
+        }
+        try {
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+                    .get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            long open = sends.stream().filter(f -> !f.isDone()).count();
+            LOG.warnf("%d of %d mails still sending after %s, completing in the background", open, batch.size(), sendTimeout);
+        } catch (ExecutionException e) {
+            // Abschluss fehlgeschlagen (DB): die Zeile bleibt beansprucht und wird nach Ablauf der Lease wiederholt
+            LOG.error("Could not complete outbox mail", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sample.stop(batchTimer);
+        return batch.size();
+    }
+
+    private List<Claimed> claim() {
+        OffsetDateTime now = OffsetDateTime.now();
+        return QuarkusTransaction.requiringNew().call(() -> MailOutbox.getEntityManager().unwrap(Session.class)
+                .doReturningWork(connection -> {
+                    try (PreparedStatement ps = connection.prepareStatement(CLAIM_SQL)) {
+                        ps.setObject(1, now.plus(lease));
+                        ps.setObject(2, now);
+                        ps.setInt(3, batchSize);
+                        List<Claimed> claimed = new ArrayList<>();
+                        try (ResultSet rs = ps.executeQuery()) {
+                            while (rs.next()) {
+                                claimed.add(new Claimed(rs.getObject(1, UUID.class), rs.getString(2),
+                                        rs.getString(3), rs.getString(4), rs.getInt(5)));
+                            }
+                        }
+                        return claimed;
+                    }
+                }));
+    }
+
+    /**
+     * Schließt eine Zeile ab: gesendet -> löschen, sonst neu einplanen oder aufgeben (Body schwärzen).
+     * Eine kurze Transaktion je Mail, damit ein verschickter Link nie erneut verschickt wird.
+     */
+    private void complete(Claimed m, String error) {
+        if (error == null) {
+            QuarkusTransaction.requiringNew().run(() -> MailOutbox.deleteById(m.id()));
+            sent.increment();
+            return;
+        }
+        String lastError = error.length() > 1000 ? error.substring(0, 1000) : error;
+        if (m.attempts() >= maxAttempts) {
+            QuarkusTransaction.requiringNew().run(() ->
+                    MailOutbox.update("status = ?1, body = ?2, lastError = ?3 WHERE id = ?4",
+                            MailOutbox.FAILED, MailOutbox.REDACTED_BODY, lastError, m.id()));
+            failed.increment();
+            LOG.errorf("Giving up on mail %s to %s after %d attempts: %s", m.id(), m.recipient(), m.attempts(), error);
+        } else {
+            OffsetDateTime next = OffsetDateTime.now().plus(backoff(m.attempts()));
+            QuarkusTransaction.requiringNew().run(() ->
+                    MailOutbox.update("nextAttemptAt = ?1, lastError = ?2 WHERE id = ?3", next, lastError, m.id()));
+            retried.increment();
+            LOG.warnf("Mail %s to %s failed (attempt %d), retrying: %s", m.id(), m.recipient(), m.attempts(), error);
+        }
+    }
+
+    /** base * 2^(attempt-1), gedeckelt auf max, mit ±20 % Jitter. */
+    private Duration backoff(int attempt) {
+        long base = backoffBase.toMillis() << Math.min(attempt - 1, 20);
+        long capped = Math.min(base, backoffMax.toMillis());
+        double jitter = 0.8 + ThreadLocalRandom.current().nextDouble() * 0.4;
+        return Duration.ofMillis((long) (capped * jitter));
+    }
+}
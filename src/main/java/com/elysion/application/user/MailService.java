@@ -1,32 +1,53 @@
 package com.elysion.application.user;
 
+import com.elysion.domain.user.MailOutbox;
 import com.elysion.domain.user.User;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Legt Mails in der Outbox ({@code mail_outbox}) ab – in der Transaktion des Aufrufers.
+ * Verschickt wird asynchron vom {@link MailOutboxDispatcher}; ein Rollback verwirft damit auch die Mail,
+ * und kein Request wartet auf SMTP.
+ */
 @ApplicationScoped
 public class MailService {
 
-    public void sendActivationMail(User user, String token) {
-        String activationLink = "https://100.66.219.89:8080/users/confirm-email?token=" + token;
-        System.out.println("👉 Bestätigungslink: " + activationLink);
+    @ConfigProperty(name = "mail.link.base-url", defaultValue = "https://100.66.219.89:8080")
+    String linkBaseUrl;
 
-        // Oder echtes E-Mail-System:
-        // mailer.send(Mail.withText(user.email, "Bestätige dein Konto", "Link: " + activationLink));
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void sendActivationMail(User user, String token) {
+        String activationLink = linkBaseUrl + "/users/confirm-email?token=" + token;
+        enqueue("ACTIVATION", user.email, "Bestätige dein Konto", "Link: " + activationLink);
     }
 
     /**
      * Sendet einen Bestätigungslink an die neue, noch nicht aktive E-Mail-Adresse.
      * Der User muss diesen Link klicken, um die Änderung abzuschließen.
      */
+    @Transactional(Transactional.TxType.MANDATORY)
     public void sendEmailChangeConfirmation(User user, String token) {
-        String confirmLink = "https://100.66.219.89:8080/users/confirm-email?token=" + token;
-        System.out.println("👉 Bestätigungslink für neue E-Mails: " + confirmLink);
+        String confirmLink = linkBaseUrl + "/users/confirm-email?token=" + token;
+        enqueue("EMAIL_CHANGE", user.pendingEmail,
+                "Bitte bestätige deine neue E-Mail-Adresse",
+                "Klicke hier zum Bestätigen: " + confirmLink);
+    }
 
-        // Bei echtem Setup:
-        // mailer.send(Mail.withText(
-        //     user.pendingEmail,
-        //     "Bitte bestätige deine neue E-Mail-Adresse",
-        //     "Klicke hier zum Bestätigen:" + confirmLink
-        // ));
+    private void enqueue(String kind, String recipient, String subject, String body) {
+        OffsetDateTime now = OffsetDateTime.now();
+        MailOutbox mail = new MailOutbox();
+        mail.id = UUID.randomUUID();
+        mail.kind = kind;
+        mail.recipient = recipient;
+        mail.subject = subject;
+        mail.body = body;
+        mail.nextAttemptAt = now;
+        mail.createdAt = now;
+        mail.persist();
     }
-}
\ No newline at end of file
+}
@@ -1,17 +1,121 @@
 package com.elysion.application.user;
 
 import com.elysion.domain.user.SustainabilityFilter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.panache.common.Sort;
+import io.quarkus.runtime.StartupEvent;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
 
 @ApplicationScoped
 public class SustainabilityFilterService {
 
+    private static final Logger LOG = Logger.getLogger(SustainabilityFilterService.class);
+
+    /**
+     * Unveränderlicher Stand des Filter-Katalogs: Entities, fertig serialisiertes JSON und
+     * Inhalts-Hash als (starkes) ETag.
+     * Der Katalog ändert sich nur per Liquibase, daher wird er beim Start geladen und nur auf
+     * Anforderung ({@link #reload()}) neu aufgebaut. {@code idsByKey} dient als Key-Registry, damit
+     * Präferenz-Operationen Filter-Keys ohne Query auflösen und validieren können; {@code indexByKey} und
+     * {@code keyByIndex} bilden Keys auf die Positionen im {@link com.elysion.domain.user.PreferenceVector} ab.
+     */
+    public record FilterCatalog(List<SustainabilityFilter> filters, Map<String, UUID> idsByKey,
+                                Map<String, Integer> indexByKey, Map<Integer, String> keyByIndex,
+                                byte[] json, String etag) {}
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    /** ReentrantLock statt synchronized: die DB-Abfrage im Reload würde sonst den Carrier eines virtuellen Threads pinnen. */
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    private volatile FilterCatalog catalog;
+
     /**
-     * Gibt alle Sustainability-Filter zurück.
-     * Später hier z.B. Caching, Sortierung oder komplexe Business-Logik ergänzen.
+     * Lädt den Katalog blockierend beim Start, bevor der HTTP-Server Requests annimmt: {@link #catalog()} wird
+     * auch vom Event-Loop ({@code GET /filters}, reaktive Präferenz-Pfade) aufgerufen und darf dort nie laden.
+     */
+    void onStart(@Observes StartupEvent ev) {
+        reload();
+    }
+
+    /**
+     * Gibt alle Sustainability-Filter zurück (aus dem Snapshot, ohne DB-Zugriff).
      */
     public List<SustainabilityFilter> getAllFilters() {
-        return SustainabilityFilter.listAll();
+        return catalog().filters();
+    }
+
+    /**
+     * Löst einen Filter-Key ohne DB-Zugriff in die Filter-ID auf.
+     *
+     * @return leer, wenn der Key im Katalog nicht existiert
+     */
+    public Optional<UUID> filterId(String filterKey) {
+        return Optional.ofNullable(catalog().idsByKey().get(filterKey));
+    }
+
+    /** Position des Filters im Präferenz-Vektor. */
+    public Optional<Integer> filterIndex(String filterKey) {
+        return Optional.ofNullable(catalog().indexByKey().get(filterKey));
+    }
+
+    public FilterCatalog catalog() {
+        FilterCatalog c = catalog;
+        return c != null ? c : reload();
+    }
+
+    /**
+     * Lädt den Katalog neu aus der DB und tauscht den Snapshot atomar aus.
+     */
+    public FilterCatalog reload() {
+        reloadLock.lock();
+        try {
+            return load();
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private FilterCatalog load() {
+        List<SustainabilityFilter> filters = List.copyOf(SustainabilityFilter.listAll(Sort.by("key")));
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(filters);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize filter catalogue", e);
+        }
+        Map<String, UUID> idsByKey = filters.stream()
+                .collect(Collectors.toUnmodifiableMap(f -> f.key, f -> f.id));
+        Map<String, Integer> indexByKey = filters.stream()
+                .collect(Collectors.toUnmodifiableMap(f -> f.key, f -> f.bitIndex));
+        Map<Integer, String> keyByIndex = filters.stream()
+                .collect(Collectors.toUnmodifiableMap(f -> f.bitIndex, f -> f.key));
+        FilterCatalog next = new FilterCatalog(filters, idsByKey, indexByKey, keyByIndex, json, sha256(json));
+        catalog = next;
+        LOG.infof("Filter catalogue loaded: %d filters, etag %s", filters.size(), next.etag());
+        return next;
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,226 @@
+package com.elysion.application.user;
+
+import com.elysion.domain.user.User;
+import com.elysion.domain.user.UserSummary;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.agroal.api.AgroalDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.panache.common.Parameters;
+import io.quarkus.panache.common.Sort;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Lesender Zugriff auf die User-Tabelle für Admins: seitenweise Liste und Export.
+ * <p>
+ * Beides läuft über den Index {@code ix_users_created_at_id} in der Reihenfolge {@code (created_at, id)}.
+ * Die Liste blättert per Keyset (Cursor = letzter {@code (created_at, id)}), nicht per OFFSET: jede Seite
+ * kostet gleich viel, egal wie weit hinten. Der Export liest über einen Forward-Only-Cursor mit fester
+ * Fetch-Size und schreibt jede Zeile sofort weiter – der Speicherbedarf hängt nicht von der Tabellengröße ab.
+ */
+@ApplicationScoped
+public class UserDirectoryService {
+
+    private static final Logger LOG = Logger.getLogger(UserDirectoryService.class);
+
+    public static final int MAX_PAGE_SIZE = 500;
+    private static final int EXPORT_FETCH_SIZE = 500;
+
+    private static final String EXPORT_SQL = """
+            SELECT id, email, first_name, last_name, role, active, disabled, created_at
+            FROM users
+            """;
+
+    private static final String CSV_HEADER = "id,email,first_name,last_name,role,active,disabled,created_at\n";
+
+    public enum ExportFormat { NDJSON, CSV }
+
+    /**
+     * Eine Seite der Userliste.
+     *
+     * @param next Cursor für die nächste Seite, null auf der letzten
+     */
+    public record Page(List<UserSummary> items, String next) {}
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    MeterRegistry registry;
+
+    /**
+     * Liefert bis zu {@code limit} User nach {@code after} (Cursor der vorigen Seite, null = Anfang),
+     * optional gefiltert nach Rolle und Aktivierung.
+     *
+     * @throws IllegalArgumentException bei ungültigem Cursor oder Limit
+     */
+    public Page list(String role, Boolean active, String after, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        List<String> where = new ArrayList<>();
+        Parameters params = new Parameters();
+        if (role != null && !role.isBlank()) {
+            where.add("role = :role");
+            params.and("role", role);
+        }
+        if (active != null) {
+            where.add("active = :active");
+            params.and("active", active);
+        }
+        if (after != null && !after.isBlank()) {
+            Cursor cursor = Cursor.decode(after);
+            where.add("(createdAt, id) > (:afterCreatedAt, :afterId)");
+            params.and("afterCreatedAt", cursor.createdAt()).and("afterId", cursor.id());
+        }
+
+        // eine Zeile mehr lesen, um zu wissen, ob es eine nächste Seite gibt
+        List<UserSummary> rows = User.find(String.join(" and ", where), Sort.by("createdAt").and("id"), params)
+                .project(UserSummary.class)
+                .range(0, limit)
+                .list();
+        if (rows.size() <= limit) {
+            return new Page(rows, null);
+        }
+        List<UserSummary> items = rows.subList(0, limit);
+        UserSummary last = items.get(limit - 1);
+        return new Page(List.copyOf(items), new Cursor(last.createdAt(), last.id()).encode());
+    }
+
+    /**
+     * Schreibt alle passenden User als NDJSON (ein JSON-Objekt je Zeile) oder CSV nach {@code out}.
+     * Läuft außerhalb einer JTA-Transaktion auf einer eigenen, read-only Verbindung.
+     *
+     * @return Anzahl geschriebener Zeilen
+     */
+    public long export(String role, Boolean active, ExportFormat format, OutputStream out) throws IOException {
+        StringBuilder sql = new StringBuilder(EXPORT_SQL);
+        List<Object> args = new ArrayList<>(2);
+        String glue = "WHERE ";
+        if (role != null && !role.isBlank()) {
+            sql.append(glue).append("role = ? ");
+            args.add(role);
+            glue = "AND ";
+        }
+        if (active != null) {
+            sql.append(glue).append("active = ? ");
+            args.add(active);
+        }
+        sql.append("ORDER BY created_at, id");
+
+        long start = System.nanoTime();
+        long count = 0;
+        BufferedOutputStream buffered = new BufferedOutputStream(out, 64 * 1024);
+        try (Connection connection = dataSource.getConnection()) {
+            // PostgreSQL liefert nur ohne Autocommit portionsweise (Cursor), sonst das ganze Ergebnis auf einmal
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+            try (PreparedStatement ps = connection.prepareStatement(sql.toString(),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                ps.setFetchSize(EXPORT_FETCH_SIZE);
+                for (int i = 0; i < args.size(); i++) {
+                    ps.setObject(i + 1, args.get(i));
+                }
+                if (format == ExportFormat.CSV) {
+                    buffered.write(CSV_HEADER.getBytes(StandardCharsets.UTF_8));
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        UserSummary row = new UserSummary(rs.getObject(1, UUID.class), rs.getString(2),
+                                rs.getString(3), rs.getString(4), rs.getString(5), rs.getBoolean(6),
+                                rs.getBoolean(7), rs.getObject(8, OffsetDateTime.class));
+                        if (format == ExportFormat.CSV) {
+                            buffered.write(toCsv(row).getBytes(StandardCharsets.UTF_8));
+                        } else {
+                            buffered.write(objectMapper.writeValueAsBytes(row));
+                            buffered.write('\n');
+                        }
+                        count++;
+                    }
+                }
+            } finally {
+                connection.rollback();
+                connection.setReadOnly(false);
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("User export failed after " + count + " rows", e);
+        }
+        buffered.flush();
+
+        Counter.builder("admin.users.exported")
+                .description("Exportierte User-Zeilen")
+                .tag("format", format.name().toLowerCase())
+                .register(registry)
+                .increment(count);
+        LOG.infof("Exported %d users as %s in %d ms", count, format, (System.nanoTime() - start) / 1_000_000);
+        return count;
+    }
+
+    private static String toCsv(UserSummary u) {
+        return String.join(",",
+                u.id().toString(),
+                csv(u.email()),
+                csv(u.firstName()),
+                csv(u.lastName()),
+                csv(u.role()),
+                Boolean.toString(u.active()),
+                Boolean.toString(u.disabled()),
+                u.createdAt().toString()) + "\n";
+    }
+
+    /**
+     * Quotet bei Trennzeichen, Anführungszeichen oder Zeilenumbruch; Werte, die eine Tabellenkalkulation als
+     * Formel lesen würde (=, +, -, @), bekommen ein führendes Hochkomma.
+     */
+    private static String csv(String value) {
+        if (value == null) return "";
+        String v = value;
+        if (!v.isEmpty() && "=+-@".indexOf(v.charAt(0)) >= 0) {
+            v = "'" + v;
+        }
+        if (v.indexOf(',') >= 0 || v.indexOf('"') >= 0 || v.indexOf('\n') >= 0 || v.indexOf('\r') >= 0) {
+            return '"' + v.replace("\"", "\"\"") + '"';
+        }
+        return v;
+    }
+
+    /** Position in der Sortierung {@code (created_at, id)}, als opaker Base64url-String nach außen. */
+    private record Cursor(OffsetDateTime createdAt, UUID id) {
+
+        String encode() {
+            String raw = createdAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String value) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+                int sep = raw.indexOf('|');
+                return new Cursor(OffsetDateTime.parse(raw.substring(0, sep)), UUID.fromString(raw.substring(sep + 1)));
+            } catch (IllegalArgumentException | DateTimeParseException | StringIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+    }
+}
@@ -0,0 +1,414 @@
+package com.elysion.application.user;
+
+import com.elysion.domain.user.PreferenceVector;
+import com.elysion.security.PasswordService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.agroal.api.AgroalDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Massenimport von Usern (Migration von der Vorgängerplattform) als NDJSON, eine Zeile je User.
+ * <p>
+ * Verarbeitet wird in Chunks von {@code user.import.chunk-size} Zeilen:
+ * <ol>
+ *   <li>Zeilen prüfen, Dubletten im Chunk aussortieren</li>
+ *   <li>belegte Adressen mit einer Abfrage je Chunk ({@code email = ANY(?)}) aussortieren – vor dem Hashing</li>
+ *   <li>Klartext-Passwörter parallel auf einem eigenen Pool hashen (Logins nutzen weiter den Hashing-Pool)</li>
+ *   <li>alle Zeilen des Chunks mit einem {@code INSERT ... SELECT FROM unnest(...)} schreiben;
+ *       {@code ON CONFLICT DO NOTHING RETURNING id} zeigt, welche Zeilen gegen parallele Registrierungen verloren haben</li>
+ * </ol>
+ * Importierte User bekommen kein Token und keine Mail; inaktive können {@code /auth/resend-activation} nutzen.
+ * <p>
+ * Ein Import läuft synchron im Request. Damit er nicht in HTTP-Timeouts läuft, liest ein Request höchstens
+ * {@code user.import.max-rows} Zeilen; der Rest wird nicht angefasst und ab {@link ImportReport#nextLine()} in
+ * einem weiteren Request geschickt.
+ */
+@ApplicationScoped
+public class UserImportService {
+
+    private static final Logger LOG = Logger.getLogger(UserImportService.class);
+
+    private static final Set<String> IMPORTABLE_ROLES = Set.of("User", "Seller");
+
+    private static final String TAKEN_SQL = """
+            SELECT email FROM users WHERE email = ANY(?)
+            UNION
+            SELECT pending_email FROM users WHERE pending_email = ANY(?)
+            """;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO users (id, email, password_hash, salt, first_name, last_name, role, active, created_at, pref_vector)
+            SELECT r.id, r.email, r.password_hash, r.salt, r.first_name, r.last_name, r.role, r.active, r.created_at, ?
+            FROM unnest(?::uuid[], ?::varchar[], ?::varchar[], ?::varchar[], ?::varchar[], ?::varchar[], ?::varchar[],
+                        ?::boolean[], ?::timestamptz[])
+                 AS r(id, email, password_hash, salt, first_name, last_name, role, active, created_at)
+            ON CONFLICT DO NOTHING
+            RETURNING id
+            """;
+
+    /** Eine Zeile der Eingabe: entweder {@code password} oder {@code passwordHash} + {@code salt}. */
+    public static class ImportRow {
+        public String email;
+        public String password;
+        public String passwordHash;
+        public String salt;
+        public String firstName;
+        public String lastName;
+        public String role;
+        public Boolean active;
+        public OffsetDateTime createdAt;
+    }
+
+    public enum Outcome { CREATED, DUPLICATE, INVALID, FAILED }
+
+    /**
+     * Ergebnis einer Zeile.
+     *
+     * @param line Zeilennummer in der Eingabe (ab 1)
+     * @param id   ID des angelegten Users, sonst null
+     */
+    public record RowResult(long line, String email, Outcome outcome, UUID id, String error) {}
+
+    /**
+     * Zusammenfassung eines Imports.
+     *
+     * @param results  Ergebnisse je Zeile; ohne {@code includeCreated} nur die nicht angelegten
+     * @param nextLine erste nicht gelesene Zeile, wenn {@code user.import.max-rows} erreicht wurde, sonst null
+     */
+    public record ImportReport(long total, long created, long duplicates, long invalid, long failed,
+                               List<RowResult> results, Long nextLine) {}
+
+    @ConfigProperty(name = "user.import.chunk-size", defaultValue = "1000")
+    int chunkSize;
+
+    /**
+     * Threads zum Hashen; ohne Angabe die Hälfte der Kerne (mindestens einer), damit Logins und Registrierungen
+     * auf dem {@link com.elysion.security.PasswordHashingExecutor} während eines Imports nicht verhungern.
+     */
+    @ConfigProperty(name = "user.import.hashing-threads")
+    Optional<Integer> hashingThreads;
+
+    /** Höchstens so viele (nicht leere) Zeilen je Request, siehe {@link ImportReport#nextLine()}. */
+    @ConfigProperty(name = "user.import.max-rows", defaultValue = "1000")
+    int maxRows;
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    @Inject
+    PasswordService passwordService;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    MeterRegistry registry;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /** Zeile samt Zwischenstand innerhalb eines Chunks. */
+    private static final class Pending {
+        final long line;
+        final ImportRow row;
+        final UUID id = UUID.randomUUID();
+        String salt;
+        String hash;
+
+        Pending(long line, ImportRow row) {
+            this.line = line;
+            this.row = row;
+        }
+    }
+
+    /** Zähler und Ergebnisliste über alle Chunks. */
+    private static final class Tally {
+        final boolean includeCreated;
+        final List<RowResult> results = new ArrayList<>();
+        long total, created, duplicates, invalid, failed;
+
+        Tally(boolean includeCreated) {
+            this.includeCreated = includeCreated;
+        }
+
+        void add(RowResult r) {
+            switch (r.outcome()) {
+                case CREATED -> created++;
+                case DUPLICATE -> duplicates++;
+                case INVALID -> invalid++;
+                case FAILED -> failed++;
+            }
+            if (includeCreated || r.outcome() != Outcome.CREATED) {
+                results.add(r);
+            }
+        }
+    }
+
+    /**
+     * Liest NDJSON aus {@code in} und legt die User an. Jeder Chunk wird für sich geschrieben:
+     * bricht der Import ab, bleiben bereits geschriebene Chunks bestehen, ein erneuter Lauf meldet sie als Dublette.
+     *
+     * @param includeCreated auch angelegte Zeilen im Ergebnis aufführen (bei großen Importen entsprechend groß)
+     * @throws IllegalStateException wenn bereits ein Import läuft
+     */
+    public ImportReport importUsers(InputStream in, boolean includeCreated) throws IOException {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Import already running");
+        }
+        int threads = hashingThreads.filter(n -> n > 0)
+                .orElse(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        AtomicInteger seq = new AtomicInteger();
+        ExecutorService hashers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "user-import-hasher-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        long start = System.nanoTime();
+        Tally tally = new Tally(includeCreated);
+        Long nextLine = null;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            ObjectReader rowReader = objectMapper.readerFor(ImportRow.class);
+            List<Pending> chunk = new ArrayList<>(chunkSize);
+            Set<String> chunkEmails = new HashSet<>();
+            String text;
+            long line = 0;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (text.isBlank()) continue;
+                if (tally.total == maxRows) {
+                    nextLine = line;
+                    break;
+                }
+                tally.total++;
+                ImportRow row;
+                try {
+                    row = rowReader.readValue(text);
+                } catch (JsonProcessingException e) {
+                    tally.add(new RowResult(line, null, Outcome.INVALID, null, "Invalid JSON"));
+                    continue;
+                }
+                String error = validate(row);
+                if (error != null) {
+                    tally.add(new RowResult(line, row.email, Outcome.INVALID, null, error));
+                    continue;
+                }
+                if (!chunkEmails.add(row.email)) {
+                    tally.add(new RowResult(line, row.email, Outcome.DUPLICATE, null, "E-Mail already in use"));
+                    continue;
+                }
+                chunk.add(new Pending(line, row));
+                if (chunk.size() == chunkSize) {
+                    processChunk(chunk, hashers, tally);
+                    chunk.clear();
+                    chunkEmails.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                processChunk(chunk, hashers, tally);
+            }
+        } finally {
+            hashers.shutdownNow();
+            running.set(false);
+        }
+
+        count(Outcome.CREATED, tally.created);
+        count(Outcome.DUPLICATE, tally.duplicates);
+        count(Outcome.INVALID, tally.invalid);
+        count(Outcome.FAILED, tally.failed);
+        LOG.infof("User import: %d rows, %d created, %d duplicates, %d invalid, %d failed in %d ms%s",
+                tally.total, tally.created, tally.duplicates, tally.invalid, tally.failed,
+                (System.nanoTime() - start) / 1_000_000, nextLine != null ? ", stopped before line " + nextLine : "");
+        return new ImportReport(tally.total, tally.created, tally.duplicates, tally.invalid, tally.failed,
+                List.copyOf(tally.results), nextLine);
+    }
+
+    private void processChunk(List<Pending> chunk, ExecutorService hashers, Tally tally) {
+        List<Pending> fresh;
+        try {
+            Set<String> taken = takenEmails(chunk);
+            fresh = new ArrayList<>(chunk.size());
+            for (Pending p : chunk) {
+                if (taken.contains(p.row.email)) {
+                    tally.add(new RowResult(p.line, p.row.email, Outcome.DUPLICATE, null, "E-Mail already in use"));
+                } else {
+                    fresh.add(p);
+                }
+            }
+        } catch (SQLException e) {
+            failAll(chunk, tally, e);
+            return;
+        }
+
+        List<Pending> hashed = hash(fresh, hashers, tally);
+        if (hashed.isEmpty()) return;
+
+        Set<UUID> inserted;
+        try {
+            inserted = insert(hashed);
+        } catch (SQLException e) {
+            failAll(hashed, tally, e);
+            return;
+        }
+        for (Pending p : hashed) {
+            tally.add(inserted.contains(p.id)
+                    ? new RowResult(p.line, p.row.email, Outcome.CREATED, p.id, null)
+                    // zwischen Vorab-Check und Insert vergeben (z.B. parallele Registrierung)
+                    : new RowResult(p.line, p.row.email, Outcome.DUPLICATE, null, "E-Mail already in use"));
+        }
+    }
+
+    /** Alle Hashes eines Chunks parallel; vorgehashte Zeilen werden übernommen. */
+    private List<Pending> hash(List<Pending> rows, ExecutorService hashers, Tally tally) {
+        Map<Pending, CompletableFuture<String>> jobs = new HashMap<>();
+        for (Pending p : rows) {
+            if (p.row.password != null) {
+                p.salt = passwordService.generateSalt();
+                jobs.put(p, passwordService.hashPasswordAsync(p.row.password, p.salt, hashers));
+            } else {
+                p.salt = p.row.salt;
+                p.hash = p.row.passwordHash;
+            }
+        }
+        List<Pending> done = new ArrayList<>(rows.size());
+        for (Pending p : rows) {
+            CompletableFuture<String> job = jobs.get(p);
+            if (job != null) {
+                try {
+                    p.hash = job.join();
+                } catch (CompletionException e) {
+                    LOG.warnf(e.getCause(), "Hashing failed for import line %d", p.line);
+                    tally.add(new RowResult(p.line, p.row.email, Outcome.FAILED, null, "Hashing failed"));
+                    continue;
+                }
+            }
+            done.add(p);
+        }
+        return done;
+    }
+
+    private Set<String> takenEmails(List<Pending> chunk) throws SQLException {
+        String[] emails = chunk.stream().map(p -> p.row.email).toArray(String[]::new);
+        Set<String> taken = new HashSet<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement(TAKEN_SQL)) {
+            Array array = connection.createArrayOf("varchar", emails);
+            ps.setArray(1, array);
+            ps.setArray(2, array);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    taken.add(rs.getString(1));
+                }
+            }
+        }
+        return taken;
+    }
+
+    /** Ein Statement je Chunk (implizite Transaktion); liefert die IDs der tatsächlich angelegten Zeilen. */
+    private Set<UUID> insert(List<Pending> rows) throws SQLException {
+        int n = rows.size();
+        String[] ids = new String[n], emails = new String[n], hashes = new String[n], salts = new String[n],
+                firstNames = new String[n], lastNames = new String[n], roles = new String[n],
+                actives = new String[n], createdAts = new String[n];
+        OffsetDateTime now = OffsetDateTime.now();
+        for (int i = 0; i < n; i++) {
+            Pending p = rows.get(i);
+            ids[i] = p.id.toString();
+            emails[i] = p.row.email;
+            hashes[i] = p.hash;
+            salts[i] = p.salt;
+            firstNames[i] = p.row.firstName;
+            lastNames[i] = p.row.lastName;
+            roles[i] = p.row.role == null ? "User" : p.row.role;
+            actives[i] = Boolean.toString(p.row.active == null || p.row.active);
+            createdAts[i] = (p.row.createdAt == null ? now : p.row.createdAt).toString();
+        }
+
+        Set<UUID> inserted = new HashSet<>(n * 2);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement(INSERT_SQL)) {
+            ps.setBytes(1, PreferenceVector.empty().toBytes());
+            String[][] columns = {ids, emails, hashes, salts, firstNames, lastNames, roles, actives, createdAts};
+            for (int c = 0; c < columns.length; c++) {
+                ps.setArray(c + 2, connection.createArrayOf("varchar", columns[c]));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    inserted.add(rs.getObject(1, UUID.class));
+                }
+            }
+        }
+        return inserted;
+    }
+
+    /** Prüft eine Zeile wie die Registrierung; Rückgabe ist die Fehlermeldung oder null. */
+    private String validate(ImportRow row) {
+        if (row.email == null || row.email.isBlank()) return "email is required";
+        row.email = row.email.trim();
+        if (row.email.length() > 255 || row.email.indexOf('@') < 1 || row.email.indexOf('@') == row.email.length() - 1) {
+            return "email is invalid";
+        }
+        if (row.firstName == null || row.firstName.isBlank()) return "firstName is required";
+        if (row.lastName == null || row.lastName.isBlank()) return "lastName is required";
+        if (row.firstName.length() > 100 || row.lastName.length() > 100) return "name is too long";
+        if (row.role != null && !IMPORTABLE_ROLES.contains(row.role)) return "role must be User or Seller";
+        boolean plain = row.password != null;
+        boolean hashed = row.passwordHash != null;
+        if (plain == hashed) return "exactly one of password or passwordHash is required";
+        if (plain && row.password.length() < 8) return "password must have at least 8 characters";
+        if (hashed) {
+            if (row.salt == null || row.salt.isBlank()) return "salt is required with passwordHash";
+            if (row.passwordHash.length() > 255) return "passwordHash is too long";
+            // Format und Parameter: ein präparierter Hash darf beim ersten Login keine Ressourcen binden
+            String hashError = passwordService.checkImportedHash(row.passwordHash);
+            if (hashError != null) return hashError;
+        }
+        return null;
+    }
+
+    private void failAll(List<Pending> rows, Tally tally, SQLException e) {
+        LOG.errorf(e, "Import chunk from line %d failed", rows.get(0).line);
+        for (Pending p : rows) {
+            tally.add(new RowResult(p.line, p.row.email, Outcome.FAILED, null, "Database error"));
+        }
+    }
+
+    private void count(Outcome outcome, long amount) {
+        Counter.builder("admin.users.imported")
+                .description("Importierte User-Zeilen nach Ergebnis")
+                .tag("outcome", outcome.name())
+                .register(registry)
+                .increment(amount);
+    }
+}
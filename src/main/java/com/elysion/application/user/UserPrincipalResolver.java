@@ -0,0 +1,151 @@
+package com.elysion.application.user;
+
+import com.elysion.domain.user.User;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.sqlclient.Pool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.RowIterator;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.eclipse.microprofile.jwt.JsonWebToken;
+
+import java.security.Principal;
+import java.util.UUID;
+
+/**
+ * Löst den eingeloggten Principal in einen {@link User} auf.
+ * <p>
+ * Schlüssel ist die User-ID aus dem {@code sub}-Claim des JWT (siehe {@link UserService#generateJwt}).
+ * Lesende Zugriffe gehen über einen begrenzten Cache mit TTL ({@code users-by-id}); bei einem Treffer
+ * wird die {@code users}-Tabelle nicht angefasst. Zurückgegeben werden ungemanagte Kopien, die nicht
+ * per {@code persist()} geschrieben werden dürfen – dafür gibt es {@link #resolveForUpdate(Principal)}.
+ * Passwort-Hash und Salt sind in den Kopien immer null: sie liegen nie im Cache, Passwortprüfungen lesen sie
+ * frisch ({@link UserService#verifyPassword(UUID, String)}).
+ * Alle Stellen, die User-Daten ändern, rufen {@link #invalidate(UUID)} auf.
+ * {@link #resolveAsync(Principal)} nutzt denselben Cache, lädt bei einem Fehlschlag aber über den reaktiven
+ * PostgreSQL-Client und kann damit auf dem Event-Loop laufen.
+ */
+@ApplicationScoped
+public class UserPrincipalResolver {
+
+    @Inject
+    @CacheName("users-by-id")
+    Cache cache;
+
+    @Inject
+    TransactionSynchronizationRegistry txRegistry;
+
+    @Inject
+    Pool client;
+
+    private static final String SELECT_USER = """
+            SELECT id, email, role, created_at, first_name, last_name, active, disabled, pending_email
+            FROM users
+            WHERE\s""";
+
+    /**
+     * Liefert eine (ggf. gecachte) Kopie des Users oder null, wenn keiner existiert.
+     */
+    public User resolve(Principal principal) {
+        UUID id = subjectId(principal);
+        if (id == null) {
+            return principal == null ? null : copyOf(User.find("email", principal.getName()).firstResult());
+        }
+        User cached = cache.<UUID, User>get(id, key -> copyOf(User.findById(key))).await().indefinitely();
+        return copyOf(cached);
+    }
+
+    /**
+     * Wie {@link #resolve(Principal)}, aber nicht blockierend: Cache-Treffer kommen sofort,
+     * sonst wird über den reaktiven Client gelesen.
+     */
+    public Uni<User> resolveAsync(Principal principal) {
+        UUID id = subjectId(principal);
+        if (id == null) {
+            return principal == null ? Uni.createFrom().nullItem() : queryUser("email = $1", principal.getName());
+        }
+        return cache.<UUID, User>getAsync(id, key -> queryUser("id = $1", key))
+                .map(UserPrincipalResolver::copyOf);
+    }
+
+    /**
+     * Lädt den User frisch aus der DB, gemanagt in der aktuellen Transaktion.
+     */
+    public User resolveForUpdate(Principal principal) {
+        UUID id = subjectId(principal);
+        if (id == null) {
+            return principal == null ? null : User.find("email", principal.getName()).firstResult();
+        }
+        return User.findById(id);
+    }
+
+    /**
+     * Entfernt den User aus dem Cache – sofort und, falls eine Transaktion läuft, nochmals nach deren Ende,
+     * damit ein paralleler Request keinen Stand von vor dem Commit zurück in den Cache legt.
+     */
+    public void invalidate(UUID userId) {
+        if (userId == null) return;
+        cache.invalidate(userId).await().indefinitely();
+        if (txRegistry.getTransactionStatus() == Status.STATUS_ACTIVE) {
+            txRegistry.registerInterposedSynchronization(new Synchronization() {
+                @Override
+                public void beforeCompletion() {
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(userId).await().indefinitely();
+                }
+            });
+        }
+    }
+
+    private static UUID subjectId(Principal principal) {
+        if (principal instanceof JsonWebToken jwt && jwt.getSubject() != null) {
+            try {
+                return UUID.fromString(jwt.getSubject());
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private Uni<User> queryUser(String condition, Object value) {
+        return client.preparedQuery(SELECT_USER + condition)
+                .execute(Tuple.of(value))
+                .map(rows -> {
+                    RowIterator<Row> it = rows.iterator();
+                    return it.hasNext() ? fromRow(it.next()) : null;
+                });
+    }
+
+    private static User fromRow(Row row) {
+        User u = new User(row.getUUID("id"), row.getString("email"), null, null,
+                row.getString("role"), row.getOffsetDateTime("created_at"));
+        u.firstName = row.getString("first_name");
+        u.lastName = row.getString("last_name");
+        u.active = row.getBoolean("active");
+        u.disabled = row.getBoolean("disabled");
+        u.pendingEmail = row.getString("pending_email");
+        return u;
+    }
+
+    /** Ungemanagte Kopie ohne Passwort-Hash und Salt. */
+    private static User copyOf(User u) {
+        if (u == null) return null;
+        User copy = new User(u.id, u.email, null, null, u.role, u.createdAt);
+        copy.firstName = u.firstName;
+        copy.lastName = u.lastName;
+        copy.active = u.active;
+        copy.disabled = u.disabled;
+        copy.pendingEmail = u.pendingEmail;
+        return copy;
+    }
+}
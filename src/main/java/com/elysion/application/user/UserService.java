@@ -1,29 +1,196 @@
 package com.elysion.application.user;
 
+import com.elysion.domain.user.PreferenceVector;
 import com.elysion.domain.user.User;
 import com.elysion.domain.user.UserToken;
+import com.elysion.security.AccountDisabledException;
+import com.elysion.security.AccountNotActivatedException;
+import com.elysion.security.LoginThrottle;
+import com.elysion.security.LoginThrottledException;
+import com.elysion.security.PasswordHashingRejectedException;
 import com.elysion.security.PasswordService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.narayana.jta.QuarkusTransaction;
 import io.smallrye.jwt.build.Jwt;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import jakarta.persistence.LockModeType;
 import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.Session;
+import org.jboss.logging.Logger;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 
 @ApplicationScoped
 public class UserService {
 
+    private static final Logger LOG = Logger.getLogger(UserService.class);
+
+    /** Token bestätigen und User aktivieren: ein Statement, liefert die User-ID. Gesperrte User bleiben gesperrt. */
+    private static final String CONFIRM_TOKEN_SQL = """
+            WITH t AS (
+                UPDATE user_token tk
+                SET confirmed_at = ?
+                FROM users su
+                WHERE tk.token_digest = ? AND tk.type = 'ACTIVATION' AND tk.used_at IS NULL AND tk.expires_at > ?
+                  AND su.id = tk.user_id AND NOT su.disabled
+                RETURNING tk.user_id
+            )
+            UPDATE users u SET active = TRUE
+            FROM t
+            WHERE u.id = t.user_id
+            RETURNING u.id
+            """;
+
+    /** Ident-Token verbrauchen: nur bestätigt, unbenutzt, nicht abgelaufen und User aktiv. */
+    private static final String EXCHANGE_TOKEN_SQL = """
+            UPDATE user_token t
+            SET used_at = ?
+            FROM users u
+            WHERE t.token_digest = ? AND t.type = 'ACTIVATION' AND t.used_at IS NULL AND t.expires_at > ?
+              AND t.confirmed_at IS NOT NULL
+              AND u.id = t.user_id AND u.active AND NOT u.disabled
+            RETURNING u.id, u.email, u.role
+            """;
+
+    /**
+     * Rolle für viele User setzen – nur aktive, Admins bleiben unangetastet. Das UPDATE liefert die geänderten IDs,
+     * der äußere SELECT ordnet jeder angefragten ID ihr Ergebnis zu (sieht {@code users} noch vor dem UPDATE),
+     * in der Reihenfolge der Anfrage (doppelte IDs zählen an ihrer ersten Stelle).
+     */
+    private static final String BULK_ROLE_SQL = """
+            WITH req AS (
+                SELECT id, min(ord) AS ord FROM unnest(?::uuid[]) WITH ORDINALITY AS r(id, ord) GROUP BY id
+            ),
+            upd AS (
+                UPDATE users u SET role = ?
+                FROM req
+                WHERE u.id = req.id AND u.active AND COALESCE(u.role, '') <> 'Admin'
+                RETURNING u.id
+            )
+            SELECT req.id, u.id IS NOT NULL, u.active, COALESCE(u.role, '') = 'Admin', upd.id IS NOT NULL
+            FROM req
+            LEFT JOIN users u ON u.id = req.id
+            LEFT JOIN upd ON upd.id = req.id
+            ORDER BY req.ord
+            """;
+
+    /**
+     * Wie {@link #BULK_ROLE_SQL}, für die Sperre durch Admins; ohne Prüfung auf "aktiv".
+     * {@code false} sperrt ({@code disabled}), {@code active} (E-Mail bestätigt) bleibt dabei unverändert –
+     * sonst könnte sich der User per Resend und Confirm selbst wieder freischalten. {@code true} entsperrt
+     * und aktiviert.
+     */
+    private static final String BULK_ACTIVE_SQL = """
+            WITH req AS (
+                SELECT id, min(ord) AS ord FROM unnest(?::uuid[]) WITH ORDINALITY AS r(id, ord) GROUP BY id
+            ),
+            arg AS (SELECT ?::boolean AS active),
+            upd AS (
+                UPDATE users u SET active = u.active OR arg.active, disabled = NOT arg.active
+                FROM req, arg
+                WHERE u.id = req.id AND COALESCE(u.role, '') <> 'Admin'
+                RETURNING u.id
+            )
+            SELECT req.id, u.id IS NOT NULL, u.active, COALESCE(u.role, '') = 'Admin', upd.id IS NOT NULL
+            FROM req
+            LEFT JOIN users u ON u.id = req.id
+            LEFT JOIN upd ON upd.id = req.id
+            ORDER BY req.ord
+            """;
+
+    /** Obergrenze für IDs je Bulk-Änderung. */
+    public static final int MAX_BULK_IDS = 1000;
+
+    private static final Set<String> BULK_ROLES = Set.of("User", "Seller");
+
+    /**
+     * Ergebnis je ID. {@code CONCURRENT_UPDATE}: User existiert und war änderbar, wurde aber zwischen Snapshot
+     * und UPDATE von einer parallelen Transaktion geändert (z.B. zum Admin gemacht) – erneut versuchen.
+     */
+    public enum BulkOutcome { UPDATED, NOT_FOUND, NOT_ACTIVATED, ADMIN_SKIPPED, CONCURRENT_UPDATE }
+
+    /** Ergebnis einer Bulk-Änderung für eine ID. */
+    public record BulkResult(UUID id, BulkOutcome outcome) {}
+
     @Inject
     PasswordService passwordService;
 
     @Inject
     MailService mailService;
 
+    @Inject
+    LoginThrottle loginThrottle;
+
+    @Inject
+    UserPrincipalResolver principalResolver;
+
+    @ConfigProperty(name = "user.token.activation.ttl", defaultValue = "48h")
+    Duration activationTokenTtl;
+
+    @ConfigProperty(name = "user.token.email-change.ttl", defaultValue = "24h")
+    Duration emailChangeTokenTtl;
+
+    @Inject
+    MeterRegistry registry;
+
+    /** JWT-relevante Spalten aus dem Token-Exchange. */
+    private record JwtSubject(UUID id, String email, String role) {}
+
+    private Timer authenticateTimer;
+    private Timer jwtTimer;
+    private Timer confirmTokenTimer;
+    private Timer exchangeTokenTimer;
+    private Timer findTokenTimer;
+
+    @PostConstruct
+    void initMetrics() {
+        authenticateTimer = Timer.builder("auth.authenticate")
+                .description("Login inkl. Drosselung, User-Lookup und Passwortprüfung")
+                .register(registry);
+        jwtTimer = Timer.builder("jwt.sign")
+                .description("Erzeugen und Signieren eines JWT")
+                .register(registry);
+        confirmTokenTimer = tokenTimer("confirm");
+        exchangeTokenTimer = tokenTimer("exchange");
+        findTokenTimer = tokenTimer("find");
+    }
+
+    private Timer tokenTimer(String operation) {
+        return Timer.builder("user.token.lookup")
+                .description("Token-Statements (Bestätigen, Einlösen, Nachschlagen)")
+                .tag("operation", operation)
+                .register(registry);
+    }
+
+    private void countLogin(String outcome) {
+        Counter.builder("auth.login")
+                .description("Login-Versuche nach Ergebnis")
+                .tag("outcome", outcome)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Registriert einen neuen User.
+     * <p>
+     * BCrypt läuft bewusst vor der Transaktion: während des Hashings wird keine DB-Connection gehalten.
+     * Die Transaktion umfasst nur die eigentlichen Inserts von {@link User} und {@link UserToken}.
+     */
     public User register(String email, String plainPassword, String firstName, String lastName) {
+        // Vorab-Check ohne Transaktion, damit für belegte Adressen nicht umsonst gehasht wird
         if (User.find("email", email).firstResult() != null) {
             throw new IllegalArgumentException("E-Mail already in use");
         }
@@ -31,30 +198,32 @@ public class UserService {
         String salt = passwordService.generateSalt();
         String hash = passwordService.hashPassword(plainPassword, salt);
 
-        User user = new User();
-        user.id = UUID.randomUUID();
-        user.email = email;
-        user.salt = salt;
-        user.passwordHash = hash;
-        user.createdAt = OffsetDateTime.now();
-        user.role = "User";
-        user.firstName = firstName;
-        user.lastName = lastName;
-        user.active = false;
-        user.persist();
+        return QuarkusTransaction.joiningExisting().call(() -> {
+            // erneut prüfen: zwischen Vorab-Check und Insert kann sich jemand registriert haben
+            if (User.find("email", email).firstResult() != null) {
+                throw new IllegalArgumentException("E-Mail already in use");
+            }
+
+            User user = new User();
+            user.id = UUID.randomUUID();
+            user.email = email;
+            user.salt = salt;
+            user.passwordHash = hash;
+            user.createdAt = OffsetDateTime.now();
+            user.role = "User";
+            user.firstName = firstName;
+            user.lastName = lastName;
+            user.active = false;
+            user.prefVector = PreferenceVector.empty().toBytes();
+            user.persist();
 
-        // Activation-Token ausstellen
-        UserToken t = new UserToken();
-        t.id = UUID.randomUUID();
-        t.user = user;
-        t.type = "ACTIVATION";
-        t.token = UUID.randomUUID().toString();
-        t.createdAt = OffsetDateTime.now();
-        t.persist();
+            // Activation-Token ausstellen
+            String token = issueToken(user, "ACTIVATION");
 
-        mailService.sendActivationMail(user, t.token); // ✉️ Dummy-Funktion, siehe unten
+            mailService.sendActivationMail(user, token); // ✉️ landet in der Outbox, Versand asynchron
 
-        return user;
+            return user;
+        });
     }
 
     public void changeEmail(User user, String newEmail) {
@@ -62,35 +231,100 @@ public class UserService {
                 User.find("pendingEmail", newEmail).firstResult() != null) {
             throw new IllegalArgumentException("E-Mail already in use");
         }
+        // Zeilensperre: parallele Änderungen desselben Users schließen/stellen Tokens nacheinander aus
+        lockUser(user.id);
         user.pendingEmail = newEmail;
         user.persist();
+        principalResolver.invalidate(user.id);
 
         // offenes EMAIL_CHANGE-Token je User erzwingen
         UserToken.update("usedAt = ?1 WHERE user = ?2 AND type = ?3 AND usedAt IS NULL",
                 OffsetDateTime.now(), user, "EMAIL_CHANGE");
 
-        UserToken t = new UserToken();
-        t.id = UUID.randomUUID();
-        t.user = user;
-        t.type = "EMAIL_CHANGE";
-        t.token = UUID.randomUUID().toString();
-        t.createdAt = OffsetDateTime.now();
-        t.persist();
+        String token = issueToken(user, "EMAIL_CHANGE");
 
-        // E-Mail an die neue Adresse senden
-        mailService.sendEmailChangeConfirmation(user, t.token);
+        // E-Mail an die neue Adresse (über die Outbox)
+        mailService.sendEmailChangeConfirmation(user, token);
     }
 
 
+    /**
+     * Prüft ein Passwort gegen den frisch gelesenen Hash des Users – nie gegen den gecachten Principal, der
+     * keinen Hash enthält. Gelesen werden nur Salt und Hash; BCrypt läuft danach ohne gehaltene Connection.
+     *
+     * @return false auch dann, wenn es den User nicht (mehr) gibt
+     */
+    public boolean verifyPassword(UUID userId, String plainPassword) {
+        Object[] credentials = User.getEntityManager()
+                .createQuery("SELECT u.salt, u.passwordHash FROM User u WHERE u.id = ?1", Object[].class)
+                .setParameter(1, userId)
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+        return credentials != null
+                && passwordService.verifyPassword(plainPassword, (String) credentials[0], (String) credentials[1]);
+    }
+
+    /**
+     * Ändert das Passwort. Verify und Hash laufen ohne Transaktion, geschrieben wird
+     * danach in einer kurzen Transaktion nur das eine UPDATE auf {@code users}.
+     */
     public void changePassword(User user, String currentPassword, String newPassword) {
-        if (!passwordService.verifyPassword(currentPassword, user.salt, user.passwordHash)) {
+        if (!verifyPassword(user.id, currentPassword)) {
             throw new IllegalArgumentException("Incorrect current password");
         }
         String newSalt = passwordService.generateSalt();
         String newHash = passwordService.hashPassword(newPassword, newSalt);
-        user.salt = newSalt;
-        user.passwordHash = newHash;
-        user.persist();
+
+        QuarkusTransaction.joiningExisting().run(() ->
+                User.update("salt = ?1, passwordHash = ?2 WHERE id = ?3", newSalt, newHash, user.id));
+        principalResolver.invalidate(user.id);
+    }
+
+    /** Ändert Vor- und Nachnamen per UPDATE über die ID. */
+    @Transactional
+    public boolean changeProfile(UUID userId, String firstName, String lastName) {
+        long updated = User.update("firstName = ?1, lastName = ?2 WHERE id = ?3", firstName, lastName, userId);
+        principalResolver.invalidate(userId);
+        return updated > 0;
+    }
+
+    /**
+     * Login mit vorgeschalteter Drosselung: Rate-Limit und Sperre greifen vor jeder DB-Abfrage
+     * und jedem Hash-Vergleich.
+     *
+     * @throws LoginThrottledException wenn der Versuch gedrosselt wurde
+     * @throws AccountNotActivatedException bei richtigem Passwort, aber nicht aktiviertem Account
+     * @throws AccountDisabledException bei richtigem Passwort, aber von einem Admin gesperrtem Account
+     */
+    public User authenticate(String email, String plainPassword, String clientIp) {
+        Timer.Sample sample = Timer.start(registry);
+        try {
+            loginThrottle.acquire(email, clientIp);
+            User user = authenticate(email, plainPassword);
+            loginThrottle.recordSuccess(email);
+            countLogin("SUCCESS");
+            return user;
+        } catch (LoginThrottledException e) {
+            countLogin("THROTTLED");
+            throw e;
+        } catch (PasswordHashingRejectedException e) {
+            countLogin("HASHING_REJECTED");
+            throw e;
+        } catch (AccountNotActivatedException e) {
+            // Passwort war richtig: zählt nicht zur Sperre
+            countLogin("ACCOUNT_NOT_ACTIVATED");
+            throw e;
+        } catch (AccountDisabledException e) {
+            countLogin("ACCOUNT_DISABLED");
+            throw e;
+        } catch (IllegalArgumentException e) {
+            loginThrottle.recordFailure(email);
+            countLogin("INVALID_CREDENTIALS");
+            throw e;
+        } finally {
+            sample.stop(authenticateTimer);
+        }
     }
 
     public User authenticate(String email, String plainPassword) {
@@ -98,23 +332,56 @@ public class UserService {
         if (user == null || !passwordService.verifyPassword(plainPassword, user.salt, user.passwordHash)) {
             throw new IllegalArgumentException("Invalid credentials");
         }
+        if (user.disabled) {
+            throw new AccountDisabledException();
+        }
         if (!user.active) {
-            throw new IllegalArgumentException("Account not activated");
+            throw new AccountNotActivatedException();
+        }
+        if (passwordService.needsRehash(user.passwordHash)) {
+            rehash(user, plainPassword);
         }
         return user;
     }
 
+    /**
+     * Hasht das (gerade verifizierte) Passwort mit den aktuellen Parametern neu.
+     * Das UPDATE greift nur, wenn der Hash inzwischen nicht anderweitig geändert wurde.
+     * Schlägt das fehl (z.B. Hashing-Pool voll), bleibt der alte Hash gültig und der Login läuft weiter.
+     */
+    private void rehash(User user, String plainPassword) {
+        String oldHash = user.passwordHash;
+        try {
+            String newHash = passwordService.hashPassword(plainPassword, user.salt);
+            QuarkusTransaction.joiningExisting().run(() ->
+                    User.update("passwordHash = ?1 WHERE id = ?2 AND passwordHash = ?3", newHash, user.id, oldHash));
+            principalResolver.invalidate(user.id);
+            user.passwordHash = newHash;
+        } catch (PasswordHashingRejectedException e) {
+            LOG.debugf("Rehash for user %s postponed: %s", user.id, e.getMessage());
+        }
+    }
+
     /** Erzeugt ein JWT mit 2-Stunden-Laufzeit und der Rolle aus dem User-Objekt */
     public String generateJwt(User user) {
+        return generateJwt(user.id, user.email, user.role);
+    }
+
+    /** Wie {@link #generateJwt(User)}, aber direkt aus den JWT-relevanten Spalten. */
+    public String generateJwt(UUID userId, String email, String role) {
+        return jwtTimer.record(() -> signJwt(userId, email, role));
+    }
+
+    private String signJwt(UUID userId, String email, String role) {
         Set<String> groups = new HashSet<>();
         groups.add("User"); // Basisrolle immer
-        if (user.role != null && !"User".equals(user.role)) {
-            groups.add(user.role); // z.B. "Seller" oder "Admin"
+        if (role != null && !"User".equals(role)) {
+            groups.add(role); // z.B. "Seller" oder "Admin"
         }
 
         return Jwt.issuer("elysion-user-service")
-                .upn(user.email)
-                .subject(user.id.toString())
+                .upn(email)
+                .subject(userId.toString())
                 .groups(groups)
                 .audience("elysion-product-service")
                 .expiresIn(Duration.ofHours(2))
@@ -131,21 +398,28 @@ public class UserService {
         return User.find("email", email).firstResult();
     }
 
+    /**
+     * Bestätigt das Aktivierungs-Token und aktiviert den User – in einem Statement
+     * (UPDATE auf user_token, dessen RETURNING das UPDATE auf users speist).
+     */
     @Transactional
     public void confirmEmail(String rawToken) {
-        String token = rawToken == null ? null : rawToken.trim();
-        UserToken t = UserToken.find("lower(token) = lower(?1) AND type = ?2 AND usedAt IS NULL",
-                token, "ACTIVATION").firstResult();
-        if (t == null) throw new IllegalArgumentException("Invalid token");
-
-        User user = t.user;
-
-        if (!user.active) {
-            user.active = true;
-            user.persist();
-        }
-        t.confirmedAt = OffsetDateTime.now();
-        t.persist();
+        if (rawToken == null || rawToken.isBlank()) throw new IllegalArgumentException("Invalid token");
+        byte[] digest = UserToken.digest(rawToken);
+        OffsetDateTime now = OffsetDateTime.now();
+
+        UUID userId = confirmTokenTimer.record(() -> session().doReturningWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(CONFIRM_TOKEN_SQL)) {
+                ps.setObject(1, now);
+                ps.setBytes(2, digest);
+                ps.setObject(3, now);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? rs.getObject(1, UUID.class) : null;
+                }
+            }
+        }));
+        if (userId == null) throw new IllegalArgumentException("Invalid token");
+        principalResolver.invalidate(userId);
     }
 
     @Transactional
@@ -159,6 +433,7 @@ public class UserService {
         }
         user.role = "Seller";
         user.persist();
+        principalResolver.invalidate(user.id);
         return user;
     }
 
@@ -169,45 +444,154 @@ public class UserService {
         if (!u.active) throw new IllegalStateException("User not activated");
         u.role = "Admin";
         u.persist();
+        principalResolver.invalidate(u.id);
         return u;
     }
 
+    /**
+     * Setzt die Rolle ({@code User} oder {@code Seller}) für alle IDs mit einem Statement.
+     * Wie bei {@link #promoteToSeller(UUID)} nur für aktive User; Admins werden nicht verändert
+     * (Admin-Rechte nur einzeln per {@link #promoteToAdmin(UUID)} mit Step-up).
+     *
+     * @throws IllegalArgumentException bei unbekannter Rolle, leerer oder zu langer ID-Liste
+     */
+    @Transactional
+    public List<BulkResult> changeRoles(List<UUID> userIds, String role) {
+        if (!BULK_ROLES.contains(role)) {
+            throw new IllegalArgumentException("role must be User or Seller");
+        }
+        return bulkUpdate(BULK_ROLE_SQL, userIds, role, true);
+    }
+
+    /**
+     * Entsperrt und aktiviert bzw. sperrt alle IDs mit einem Statement; Admins werden nicht verändert.
+     * Gesperrte User können sich nicht einloggen und keinen Aktivierungslink anfordern oder bestätigen.
+     *
+     * @throws IllegalArgumentException bei leerer oder zu langer ID-Liste
+     */
+    @Transactional
+    public List<BulkResult> changeActivation(List<UUID> userIds, boolean active) {
+        return bulkUpdate(BULK_ACTIVE_SQL, userIds, active, false);
+    }
+
+    private List<BulkResult> bulkUpdate(String sql, List<UUID> userIds, Object value, boolean requireActive) {
+        if (userIds == null || userIds.isEmpty() || userIds.size() > MAX_BULK_IDS) {
+            throw new IllegalArgumentException("between 1 and " + MAX_BULK_IDS + " user ids required");
+        }
+        List<BulkResult> results = session().doReturningWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                ps.setArray(1, connection.createArrayOf("uuid", userIds.toArray()));
+                ps.setObject(2, value);
+                try (ResultSet rs = ps.executeQuery()) {
+                    List<BulkResult> list = new ArrayList<>(userIds.size());
+                    while (rs.next()) {
+                        UUID id = rs.getObject(1, UUID.class);
+                        BulkOutcome outcome;
+                        if (rs.getBoolean(5)) outcome = BulkOutcome.UPDATED;
+                        else if (!rs.getBoolean(2)) outcome = BulkOutcome.NOT_FOUND;
+                        else if (rs.getBoolean(4)) outcome = BulkOutcome.ADMIN_SKIPPED;
+                        else if (requireActive && !rs.getBoolean(3)) outcome = BulkOutcome.NOT_ACTIVATED;
+                        else outcome = BulkOutcome.CONCURRENT_UPDATE;
+                        list.add(new BulkResult(id, outcome));
+                    }
+                    return list;
+                }
+            }
+        });
+        for (BulkResult r : results) {
+            if (r.outcome() == BulkOutcome.UPDATED) {
+                principalResolver.invalidate(r.id());
+            }
+        }
+        return results;
+    }
+
     @Transactional
     public void resendActivationToken(String email) {
-        User user = User.find("email", email).firstResult();
+        // FOR UPDATE: Schließen und Neuausstellen laufen je User nacheinander (siehe issueToken)
+        User user = User.find("email", email).withLock(LockModeType.PESSIMISTIC_WRITE).firstResult();
         if (user == null) throw new IllegalArgumentException("User not found");
+        if (user.disabled) throw new IllegalStateException("Account disabled");
         if (user.active) throw new IllegalStateException("Account already activated");
 
         // alte offenen ACTIVATION-Tokens schließen
         UserToken.update("usedAt = ?1 WHERE user = ?2 AND type = ?3 AND usedAt IS NULL",
                 OffsetDateTime.now(), user, "ACTIVATION");
 
+        String token = issueToken(user, "ACTIVATION");
+
+        mailService.sendActivationMail(user, token);
+    }
+
+    /**
+     * Tauscht ein bestätigtes Ident-Token einmalig gegen ein JWT.
+     * <p>
+     * Verbrauch und Laden der JWT-Daten passieren in einem bedingten
+     * {@code UPDATE ... WHERE used_at IS NULL ... RETURNING}: von parallelen Versuchen gewinnt genau einer,
+     * ohne explizite Sperren. Nur im Fehlerfall wird nachgelesen, um "ungültig" von "nicht aktiviert" zu trennen.
+     */
+    @Transactional
+    public String loginWithIdentToken(String rawToken) {
+        if (rawToken == null || rawToken.isBlank()) throw new IllegalArgumentException("Invalid token");
+        byte[] digest = UserToken.digest(rawToken);
+        OffsetDateTime now = OffsetDateTime.now();
+
+        // optionales Fenster nach Confirm (z.B. 15 Min) wäre hier eine weitere Bedingung auf t.confirmed_at
+
+        JwtSubject subject = exchangeTokenTimer.record(() -> session().doReturningWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(EXCHANGE_TOKEN_SQL)) {
+                ps.setObject(1, now);
+                ps.setBytes(2, digest);
+                ps.setObject(3, now);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? new JwtSubject(rs.getObject(1, UUID.class), rs.getString(2), rs.getString(3)) : null;
+                }
+            }
+        }));
+        if (subject != null) return generateJwt(subject.id(), subject.email(), subject.role());
+
+        if (findOpenToken(rawToken, "ACTIVATION") == null) throw new IllegalArgumentException("Invalid token");
+        throw new AccountNotActivatedException();
+    }
+
+    /**
+     * Sperrt die {@code users}-Zeile bis zum Ende der Transaktion ({@code SELECT ... FOR UPDATE}).
+     */
+    private static void lockUser(UUID userId) {
+        User.find("id", userId).withLock(LockModeType.PESSIMISTIC_WRITE).firstResult();
+    }
+
+    /**
+     * Stellt ein neues Token aus. Gespeichert wird nur der Digest samt Ablaufzeit.
+     * <p>
+     * Seit der Partitionierung von {@code user_token} (Changeset 25) kann die DB "ein offenes Token je
+     * (user_id, type)" nicht mehr per UNIQUE-Index erzwingen (der müsste {@code created_at} enthalten).
+     * Aufrufer, die vorher offene Tokens schließen, halten daher die Zeilensperre auf {@code users}.
+     *
+     * @return das Roh-Token für den Mail-Link
+     */
+    private String issueToken(User user, String type) {
+        String raw = UUID.randomUUID().toString();
+        OffsetDateTime now = OffsetDateTime.now();
         UserToken t = new UserToken();
         t.id = UUID.randomUUID();
         t.user = user;
-        t.type = "ACTIVATION";
-        t.token = UUID.randomUUID().toString();
-        t.createdAt = OffsetDateTime.now();
+        t.type = type;
+        t.tokenDigest = UserToken.digest(raw);
+        t.createdAt = now;
+        t.expiresAt = now.plus("EMAIL_CHANGE".equals(type) ? emailChangeTokenTtl : activationTokenTtl);
         t.persist();
+        return raw;
+    }
 
-        mailService.sendActivationMail(user, t.token);
+    /** Offenes, nicht abgelaufenes Token per exaktem Digest-Vergleich (Index ix_user_token_digest_open). */
+    private UserToken findOpenToken(String rawToken, String type) {
+        if (rawToken == null || rawToken.isBlank()) return null;
+        return findTokenTimer.record(() -> UserToken.<UserToken>find("tokenDigest = ?1 AND type = ?2 AND usedAt IS NULL AND expiresAt > ?3",
+                UserToken.digest(rawToken), type, OffsetDateTime.now()).firstResult());
     }
 
-    @Transactional
-    public String loginWithIdentToken(String rawToken) {
-        String token = rawToken == null ? null : rawToken.trim();
-        UserToken t = UserToken.find("lower(token) = lower(?1) AND type = ?2 AND usedAt IS NULL",
-                token, "ACTIVATION").firstResult();
-        if (t == null) throw new IllegalArgumentException("Invalid token");
-        if (t.confirmedAt == null || !t.user.active)
-            throw new IllegalStateException("Account not activated");
-
-        // optionales Fenster nach Confirm (z.B. 15 Min):
-        // if (t.confirmedAt.isBefore(OffsetDateTime.now().minusMinutes(15)))
-        //     throw new IllegalStateException("Token exchange window expired");
-
-        t.usedAt = OffsetDateTime.now();
-        t.persist();
-        return generateJwt(t.user);
+    private static Session session() {
+        return UserToken.getEntityManager().unwrap(Session.class);
     }
 }
\ No newline at end of file
@@ -1,18 +1,74 @@
 package com.elysion.application.user;
 
 import com.elysion.domain.user.Importance;
+import com.elysion.domain.user.PreferenceVector;
 import com.elysion.domain.user.SustainabilityFilter;
 import com.elysion.domain.user.User;
+import com.elysion.domain.user.UserPreferenceView;
 import com.elysion.domain.user.UserSustainabilityPref;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.panache.common.Sort;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.core.buffer.Buffer;
+import io.vertx.mutiny.sqlclient.Pool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.RowIterator;
+import io.vertx.mutiny.sqlclient.Tuple;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
+import org.hibernate.Session;
 
+import java.sql.PreparedStatement;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @ApplicationScoped
 public class UserSustainabilityPrefService {
 
+    private static final String UPSERT_SQL = """
+            INSERT INTO user_sustainability_pref (id, user_id, filter_id, importance)
+            VALUES (?, ?, ?, ?)
+            ON CONFLICT (user_id, filter_id) DO UPDATE SET importance = EXCLUDED.importance
+            """;
+
+    private static final String SELECT_VIEWS_SQL = """
+            SELECT f.filter_key, p.importance
+            FROM user_sustainability_pref p
+            JOIN sustainability_filter f ON f.id = p.filter_id
+            WHERE p.user_id = $1
+            ORDER BY f.filter_key
+            """;
+
+    @Inject
+    SustainabilityFilterService filterService;
+
+    /** Reaktiver Client für die nicht blockierenden Lesepfade (*Async). */
+    @Inject
+    Pool client;
+
+    @Inject
+    MeterRegistry registry;
+
+    /** Latenz je Lese-Abfrage ({@code user.preferences.query}, Tag {@code query}). */
+    private Timer queryTimer(String query) {
+        return Timer.builder("user.preferences.query")
+                .description("Lesende Präferenz-Abfragen")
+                .tag("query", query)
+                .register(registry);
+    }
+
+    /** Misst einen reaktiven Lesepfad vom Subscribe bis zum Ergebnis bzw. Fehler. */
+    private <T> Uni<T> timed(String query, Supplier<Uni<T>> uni) {
+        return Uni.createFrom().deferred(() -> {
+            Timer.Sample sample = Timer.start(registry);
+            return uni.get().onTermination().invoke(() -> sample.stop(queryTimer(query)));
+        });
+    }
+
     /**
      * Liefert alle Präferenzen des Users (eine pro Filter).
      */
@@ -22,6 +78,19 @@ public class UserSustainabilityPrefService {
         return UserSustainabilityPref.list("user", user);
     }
 
+    /**
+     * Liefert alle Präferenzen des Users als Projektion (Filter-Key + Importance), sortiert nach Key.
+     * Eine einzige Abfrage, keine Entities und damit kein Nachladen von {@code filter}.
+     */
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public List<UserPreferenceView> getPreferenceViews(User user) {
+        if (user == null) throw new IllegalArgumentException("user is null");
+        return queryTimer("views").record(() -> UserSustainabilityPref
+                .find("user.id = ?1", Sort.by("filter.key"), user.id)
+                .project(UserPreferenceView.class)
+                .list());
+    }
+
     /**
      * Liefert die Präferenz für einen konkreten Filter (per filterKey), falls vorhanden.
      */
@@ -30,12 +99,13 @@ public class UserSustainabilityPrefService {
         if (user == null) throw new IllegalArgumentException("user is null");
         if (filterKey == null || filterKey.isBlank()) throw new IllegalArgumentException("filterKey is blank");
 
-        SustainabilityFilter filter = SustainabilityFilter.find("key", filterKey).firstResult();
-        if (filter == null) return Optional.empty();
+        Optional<UUID> filterId = filterService.filterId(filterKey);
+        if (filterId.isEmpty()) return Optional.empty();
 
-        return Optional.ofNullable(
-                UserSustainabilityPref.find("user = ?1 and filter = ?2", user, filter).firstResult()
-        );
+        return Optional.ofNullable(queryTimer("single").record(() ->
+                UserSustainabilityPref.<UserSustainabilityPref>find("user.id = ?1 and filter.id = ?2", user.id, filterId.get())
+                        .firstResult()
+        ));
     }
 
     /**
@@ -48,23 +118,71 @@ public class UserSustainabilityPrefService {
         if (filterKey == null || filterKey.isBlank()) throw new IllegalArgumentException("filterKey is blank");
         if (importance == null) throw new IllegalArgumentException("importance is null");
 
-        SustainabilityFilter filter = SustainabilityFilter.find("key", filterKey).firstResult();
-        if (filter == null) throw new IllegalArgumentException("Unknown filter key: " + filterKey);
+        UUID filterId = filterService.filterId(filterKey)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown filter key: " + filterKey));
+        PreferenceVector vector = lockVector(user.id);
 
         UserSustainabilityPref pref = UserSustainabilityPref
-                .find("user = ?1 and filter = ?2", user, filter)
+                .find("user.id = ?1 and filter.id = ?2", user.id, filterId)
                 .firstResult();
 
         if (pref == null) {
-            pref = new UserSustainabilityPref(UUID.randomUUID(), user, filter, importance);
+            // user kann eine ungemanagte Kopie aus dem Principal-Cache sein -> Referenzen per ID
+            EntityManager em = UserSustainabilityPref.getEntityManager();
+            pref = new UserSustainabilityPref(UUID.randomUUID(),
+                    em.getReference(User.class, user.id),
+                    em.getReference(SustainabilityFilter.class, filterId),
+                    importance);
             pref.persist();
         } else {
             pref.importance = importance;
             // Panache tracked entity -> Flush/merge nicht nötig
         }
+        storeVector(user, vector, v -> v.set(filterService.filterIndex(filterKey).orElseThrow(), importance));
         return pref;
     }
 
+    /**
+     * Setzt mehrere Präferenzen auf einmal (filterKey -> Importance) in einer Transaktion.
+     * Alle Keys werden vorab gegen die Key-Registry geprüft; geschrieben wird per
+     * {@code INSERT ... ON CONFLICT (user_id, filter_id) DO UPDATE} als JDBC-Batch.
+     * Nicht enthaltene Präferenzen bleiben unverändert.
+     *
+     * @return die resultierende, vollständige Map des Users
+     */
+    @Transactional
+    public Map<String, Importance> setPreferences(User user, Map<String, Importance> preferences) {
+        if (user == null) throw new IllegalArgumentException("user is null");
+        if (preferences == null || preferences.isEmpty()) throw new IllegalArgumentException("preferences are empty");
+
+        Map<UUID, Importance> byFilterId = new LinkedHashMap<>();
+        List<String> unknown = new ArrayList<>();
+        preferences.forEach((key, importance) -> {
+            if (importance == null) throw new IllegalArgumentException("importance is null for filter key: " + key);
+            filterService.filterId(key).ifPresentOrElse(id -> byFilterId.put(id, importance), () -> unknown.add(key));
+        });
+        if (!unknown.isEmpty()) throw new IllegalArgumentException("Unknown filter key(s): " + String.join(", ", unknown));
+
+        PreferenceVector vector = lockVector(user.id);
+        EntityManager em = UserSustainabilityPref.getEntityManager();
+        em.flush();
+        em.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(UPSERT_SQL)) {
+                for (Map.Entry<UUID, Importance> e : byFilterId.entrySet()) {
+                    ps.setObject(1, UUID.randomUUID());
+                    ps.setObject(2, user.id);
+                    ps.setObject(3, e.getKey());
+                    ps.setString(4, e.getValue().name());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        });
+        storeVector(user, vector, v -> preferences.forEach((key, importance) ->
+                v.set(filterService.filterIndex(key).orElseThrow(), importance)));
+        return getPreferenceMap(user);
+    }
+
     /**
      * Löscht die Präferenz für einen gegebenen Filter (per filterKey), wenn vorhanden.
      * Gibt true zurück, wenn etwas gelöscht wurde.
@@ -74,22 +192,134 @@ public class UserSustainabilityPrefService {
         if (user == null) throw new IllegalArgumentException("user is null");
         if (filterKey == null || filterKey.isBlank()) throw new IllegalArgumentException("filterKey is blank");
 
-        SustainabilityFilter filter = SustainabilityFilter.find("key", filterKey).firstResult();
-        if (filter == null) return false;
+        Optional<UUID> filterId = filterService.filterId(filterKey);
+        if (filterId.isEmpty()) return false;
 
-        long deleted = UserSustainabilityPref.delete("user = ?1 and filter = ?2", user, filter);
+        PreferenceVector vector = lockVector(user.id);
+        long deleted = UserSustainabilityPref.delete("user.id = ?1 and filter.id = ?2", user.id, filterId.get());
+        if (deleted > 0) {
+            storeVector(user, vector, v -> v.set(filterService.filterIndex(filterKey).orElseThrow(), null));
+        }
         return deleted > 0;
     }
 
     /**
      * Nützlich für das Frontend: Map filterKey -> Importance.
+     * Gelesen wird nur {@code users.pref_vector} per Primärschlüssel; Fallback auf die Projektion,
+     * solange der Vektor für den User noch nicht aufgebaut ist.
      */
     @Transactional(Transactional.TxType.SUPPORTS)
     public Map<String, Importance> getPreferenceMap(User user) {
-        return getPreferences(user).stream()
-                .collect(Collectors.toMap(
-                        p -> p.filter.key,
-                        p -> p.importance
-                ));
+        if (user == null) throw new IllegalArgumentException("user is null");
+        byte[] raw = queryTimer("map").record(() -> readVector(user.id));
+        if (raw == null) {
+            return UserPreferenceView.toMap(getPreferenceViews(user));
+        }
+        return toMap(PreferenceVector.of(raw));
+    }
+
+    /**
+     * Gepackter Präferenz-Vektor des Users (siehe {@link PreferenceVector}), per Primärschlüssel gelesen.
+     */
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public byte[] getPreferenceVector(User user) {
+        if (user == null) throw new IllegalArgumentException("user is null");
+        byte[] raw = queryTimer("vector").record(() -> readVector(user.id));
+        if (raw != null) return raw;
+        return fromRows(user).toBytes();
+    }
+
+    // ======== Reaktive Lesepfade (Event-Loop) ========
+
+    /**
+     * Wie {@link #getPreferenceViews(User)}, aber über den reaktiven Client; blockiert keinen Thread.
+     */
+    public Uni<List<UserPreferenceView>> getPreferenceViewsAsync(UUID userId) {
+        if (userId == null) throw new IllegalArgumentException("userId is null");
+        return timed("views_async", () -> client.preparedQuery(SELECT_VIEWS_SQL)
+                .execute(Tuple.of(userId))
+                .map(rows -> {
+                    List<UserPreferenceView> views = new ArrayList<>(rows.size());
+                    for (Row row : rows) {
+                        views.add(new UserPreferenceView(row.getString(0), Importance.valueOf(row.getString(1))));
+                    }
+                    return views;
+                }));
+    }
+
+    /**
+     * Wie {@link #getPreferenceMap(User)}, aber über den reaktiven Client; blockiert keinen Thread.
+     */
+    public Uni<Map<String, Importance>> getPreferenceMapAsync(UUID userId) {
+        if (userId == null) throw new IllegalArgumentException("userId is null");
+        return timed("map_async", () -> client.preparedQuery("SELECT pref_vector FROM users WHERE id = $1")
+                .execute(Tuple.of(userId)))
+                .chain(rows -> {
+                    RowIterator<Row> it = rows.iterator();
+                    byte[] raw = null;
+                    if (it.hasNext()) {
+                        Buffer buffer = it.next().getBuffer(0);
+                        raw = buffer == null ? null : buffer.getBytes();
+                    }
+                    if (raw != null) {
+                        return Uni.createFrom().item(toMap(PreferenceVector.of(raw)));
+                    }
+                    return getPreferenceViewsAsync(userId).map(UserPreferenceView::toMap);
+                });
+    }
+
+    // ======== Präferenz-Vektor ========
+
+    private Map<String, Importance> toMap(PreferenceVector vector) {
+        return vector.toMap(filterService.catalog().keyByIndex());
+    }
+
+    private static byte[] readVector(UUID userId) {
+        List<?> rows = User.getEntityManager()
+                .createNativeQuery("SELECT pref_vector FROM users WHERE id = ?1")
+                .setParameter(1, userId)
+                .getResultList();
+        return rows.isEmpty() ? null : (byte[]) rows.get(0);
+    }
+
+    /**
+     * Sperrt die users-Zeile (serialisiert parallele Änderungen je User) und liest den Vektor.
+     *
+     * @return der aktuelle Vektor oder null, wenn er noch nicht aufgebaut ist
+     */
+    private static PreferenceVector lockVector(UUID userId) {
+        List<?> rows = User.getEntityManager()
+                .createNativeQuery("SELECT pref_vector FROM users WHERE id = ?1 FOR UPDATE")
+                .setParameter(1, userId)
+                .getResultList();
+        return rows.isEmpty() || rows.get(0) == null ? null : PreferenceVector.of((byte[]) rows.get(0));
+    }
+
+    /**
+     * Wendet die Änderung auf den Vektor an und schreibt ihn zurück. Ist noch keiner vorhanden,
+     * wird er aus den (bereits geschriebenen) Zeilen in {@code user_sustainability_pref} aufgebaut.
+     */
+    private void storeVector(User user, PreferenceVector vector, Consumer<PreferenceVector> change) {
+        PreferenceVector next;
+        if (vector == null) {
+            UserSustainabilityPref.getEntityManager().flush();
+            next = fromRows(user);
+        } else {
+            next = vector;
+            change.accept(next);
+        }
+        User.getEntityManager()
+                .createNativeQuery("UPDATE users SET pref_vector = ?1 WHERE id = ?2")
+                .setParameter(1, next.toBytes())
+                .setParameter(2, user.id)
+                .executeUpdate();
+    }
+
+    private PreferenceVector fromRows(User user) {
+        PreferenceVector vector = PreferenceVector.empty();
+        for (UserPreferenceView view : getPreferenceViews(user)) {
+            filterService.filterIndex(view.filterKey()).ifPresent(index -> vector.set(index, view.importance()));
+        }
+        return vector;
     }
 }
\ No newline at end of file
@@ -0,0 +1,266 @@
+package com.elysion.application.user;
+
+import com.elysion.domain.user.MailOutbox;
+import com.elysion.domain.user.UserToken;
+import io.agroal.api.AgroalDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Räumt {@code user_token} auf (Tabelle ist monatlich nach {@code created_at} partitioniert, Changeset 25).
+ * <ul>
+ *   <li>legt die Partitionen für den laufenden und die nächsten Monate vorab an</li>
+ *   <li>hängt Partitionen ab und löscht sie, sobald alle Tokens darin abgelaufen bzw. benutzt
+ *       und älter als die Karenzzeit sind</li>
+ *   <li>löscht in den übrigen Partitionen benutzte und abgelaufene Tokens in begrenzten Batches,
+ *       je Batch eine eigene kurze Transaktion</li>
+ *   <li>löscht aufgegebene Mails ({@code mail_outbox}, Status {@code FAILED}) nach der Karenzzeit</li>
+ * </ul>
+ * Der Job läuft auf jedem Knoten, aber nur einer arbeitet: ein Lauf startet nur mit dem Advisory Lock
+ * {@link #LOCK_KEY}, die anderen überspringen ihn.
+ */
+@ApplicationScoped
+public class UserTokenRetention {
+
+    private static final Logger LOG = Logger.getLogger(UserTokenRetention.class);
+
+    /** Schlüssel für {@code pg_try_advisory_lock} (beliebig, aber im ganzen Schema eindeutig). */
+    static final long LOCK_KEY = 0x7573_6572_746f_6b6eL; // "usertokn"
+
+    private static final String PARTITION_PREFIX = "user_token_p";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String LIST_PARTITIONS_SQL = """
+            SELECT c.relname::text
+            FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = 'user_token'::regclass
+            """;
+
+    private static final String DELETE_BATCH_SQL = """
+            DELETE FROM user_token
+            WHERE id IN (
+                SELECT id FROM user_token
+                WHERE expires_at < ?1 OR used_at < ?1
+                LIMIT ?2
+            )
+            """;
+
+    @ConfigProperty(name = "user.token.retention.enabled", defaultValue = "true")
+    boolean enabled;
+
+    /** So lange bleiben abgelaufene bzw. benutzte Tokens noch liegen (z.B. für Support-Rückfragen). */
+    @ConfigProperty(name = "user.token.retention.grace", defaultValue = "7d")
+    Duration grace;
+
+    @ConfigProperty(name = "user.token.retention.batch-size", defaultValue = "1000")
+    int batchSize;
+
+    /** Obergrenze je Lauf; der Rest wird beim nächsten Lauf erledigt. */
+    @ConfigProperty(name = "user.token.retention.max-batches", defaultValue = "100")
+    int maxBatches;
+
+    @ConfigProperty(name = "user.token.retention.partitions-ahead", defaultValue = "2")
+    int partitionsAhead;
+
+    @ConfigProperty(name = "user.token.activation.ttl", defaultValue = "48h")
+    Duration activationTokenTtl;
+
+    @ConfigProperty(name = "user.token.email-change.ttl", defaultValue = "24h")
+    Duration emailChangeTokenTtl;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    private Counter rowsDropped;
+    private Counter rowsDeleted;
+    private Counter partitionsDropped;
+    private Counter failedMailsDeleted;
+    private Timer duration;
+
+    @PostConstruct
+    void init() {
+        rowsDropped = removed("partition");
+        rowsDeleted = removed("batch");
+        partitionsDropped = Counter.builder("user.token.retention.partitions.dropped")
+                .description("Gelöschte user_token-Partitionen")
+                .register(registry);
+        failedMailsDeleted = Counter.builder("mail.outbox.failed.deleted")
+                .description("Gelöschte aufgegebene Outbox-Mails")
+                .register(registry);
+        duration = Timer.builder("user.token.retention.duration")
+                .description("Laufzeit des Token-Retention-Jobs")
+                .register(registry);
+    }
+
+    private Counter removed(String mode) {
+        return Counter.builder("user.token.retention.rows")
+                .description("Entfernte user_token-Zeilen")
+                .tag("mode", mode)
+                .register(registry);
+    }
+
+    @Scheduled(every = "${user.token.retention.every:1h}", delayed = "1m",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void run() {
+        if (!enabled) return;
+        // Session-Lock auf einer eigenen Verbindung: gilt über die einzelnen Batch-Transaktionen hinweg
+        try (Connection lockConnection = dataSource.getConnection()) {
+            if (!advisoryLock(lockConnection, "pg_try_advisory_lock")) {
+                LOG.debug("Token retention is running on another node, skipping");
+                return;
+            }
+            Timer.Sample sample = Timer.start(registry);
+            try {
+                ensurePartitions();
+                dropExpiredPartitions();
+                deleteClosedTokens();
+                deleteFailedMails();
+            } catch (RuntimeException e) {
+                LOG.error("Token retention failed", e);
+            } finally {
+                sample.stop(duration);
+                advisoryLock(lockConnection, "pg_advisory_unlock");
+            }
+        } catch (SQLException e) {
+            LOG.error("Token retention could not acquire its lock", e);
+        }
+    }
+
+    private static boolean advisoryLock(Connection connection, String function) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("SELECT " + function + "(?)")) {
+            ps.setLong(1, LOCK_KEY);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    /** Legt die Partitionen für den laufenden und die nächsten {@code partitions-ahead} Monate an. */
+    void ensurePartitions() {
+        YearMonth month = YearMonth.now(ZoneOffset.UTC);
+        for (int i = 0; i <= partitionsAhead; i++) {
+            YearMonth m = month.plusMonths(i);
+            String sql = "CREATE TABLE IF NOT EXISTS " + partitionName(m) + " PARTITION OF user_token"
+                    + " FOR VALUES FROM ('" + m.atDay(1) + " 00:00:00+00') TO ('" + m.plusMonths(1).atDay(1) + " 00:00:00+00')";
+            try {
+                QuarkusTransaction.requiringNew().run(() -> em().createNativeQuery(sql).executeUpdate());
+            } catch (PersistenceException e) {
+                // z.B. Zeilen dieses Monats liegen bereits in user_token_default
+                LOG.warnf("Could not create partition %s: %s", partitionName(m), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Löscht Partitionen, deren Monat so lange vorbei ist, dass jedes Token darin abgelaufen und die
+     * Karenzzeit verstrichen ist. Zur Sicherheit wird vorher geprüft, dass keine noch gültigen Tokens
+     * enthalten sind (z.B. bei der Migration nachgetragene Ablaufzeiten).
+     */
+    void dropExpiredPartitions() {
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        Duration maxTtl = activationTokenTtl.compareTo(emailChangeTokenTtl) >= 0 ? activationTokenTtl : emailChangeTokenTtl;
+        OffsetDateTime cutoff = now.minus(maxTtl).minus(grace);
+
+        for (String partition : partitions()) {
+            YearMonth month = monthOf(partition);
+            if (month == null) continue;
+            OffsetDateTime upper = month.plusMonths(1).atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC);
+            if (!upper.isBefore(cutoff)) continue;
+
+            Long dropped = QuarkusTransaction.requiringNew().call(() -> {
+                Object[] counts = (Object[]) em()
+                        .createNativeQuery("SELECT count(*), count(*) FILTER (WHERE used_at IS NULL AND expires_at >= ?1) FROM " + partition)
+                        .setParameter(1, now.minus(grace))
+                        .getSingleResult();
+                if (((Number) counts[1]).longValue() > 0) return null;
+                em().createNativeQuery("ALTER TABLE user_token DETACH PARTITION " + partition).executeUpdate();
+                em().createNativeQuery("DROP TABLE " + partition).executeUpdate();
+                return ((Number) counts[0]).longValue();
+            });
+            if (dropped == null) {
+                LOG.infof("Partition %s still holds open tokens, keeping it", partition);
+                continue;
+            }
+            rowsDropped.increment(dropped);
+            partitionsDropped.increment();
+            LOG.infof("Dropped token partition %s (%d rows)", partition, dropped);
+        }
+    }
+
+    /** Löscht benutzte und abgelaufene Tokens in Batches à {@code batch-size}, höchstens {@code max-batches}. */
+    void deleteClosedTokens() {
+        OffsetDateTime cutoff = OffsetDateTime.now().minus(grace);
+        long total = 0;
+        for (int i = 0; i < maxBatches; i++) {
+            int deleted = QuarkusTransaction.requiringNew().call(() -> em()
+                    .createNativeQuery(DELETE_BATCH_SQL)
+                    .setParameter(1, cutoff)
+                    .setParameter(2, batchSize)
+                    .executeUpdate());
+            rowsDeleted.increment(deleted);
+            total += deleted;
+            if (deleted < batchSize) break;
+        }
+        if (total > 0) LOG.infof("Deleted %d closed tokens", total);
+    }
+
+    /** Löscht {@code FAILED}-Zeilen der Outbox, die älter als die Karenzzeit sind. */
+    void deleteFailedMails() {
+        OffsetDateTime cutoff = OffsetDateTime.now().minus(grace);
+        long deleted = QuarkusTransaction.requiringNew().call(() ->
+                MailOutbox.delete("status = ?1 AND createdAt < ?2", MailOutbox.FAILED, cutoff));
+        failedMailsDeleted.increment(deleted);
+        if (deleted > 0) LOG.infof("Deleted %d failed outbox mails", deleted);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> partitions() {
+        return QuarkusTransaction.requiringNew().call(() -> (List<String>) em()
+                .createNativeQuery(LIST_PARTITIONS_SQL)
+                .getResultList());
+    }
+
+    private static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(SUFFIX);
+    }
+
+    /** @return Monat aus {@code user_token_pYYYYMM} oder null (z.B. für {@code user_token_default}) */
+    private static YearMonth monthOf(String partition) {
+        if (!partition.startsWith(PARTITION_PREFIX)) return null;
+        try {
+            return YearMonth.parse(partition.substring(PARTITION_PREFIX.length()), SUFFIX);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static EntityManager em() {
+        return UserToken.getEntityManager();
+    }
+}
@@ -0,0 +1,176 @@
+package com.elysion.application.user;
+
+import com.elysion.domain.user.User;
+import com.elysion.security.PasswordService;
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.arc.Arc;
+import io.quarkus.arc.ManagedContext;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import io.vertx.mutiny.sqlclient.Pool;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Wärmt eine frische Instanz auf, bevor sie Traffic bekommt (Readiness erst danach UP):
+ * <ul>
+ *   <li>füllt den JDBC-Pool (Agroal) und den reaktiven Pool mit {@code connections} Verbindungen</li>
+ *   <li>führt die Panache-Queries von {@link UserService} und {@link UserSustainabilityPrefService} über die
+ *       Service-Methoden selbst aus – mit unbekannten IDs/Tokens, so dass nichts geändert wird – und kompiliert
+ *       damit die Query-Pläne und die Server-seitigen Prepared Statements</li>
+ *   <li>hasht/prüft einige Passwörter und signiert JWTs (lädt den RSA-Key, JIT für BCrypt und Signatur)</li>
+ * </ul>
+ * Scheitert ein Schritt (z.B. DB nicht erreichbar), gilt das Aufwärmen trotzdem als beendet; die Erreichbarkeit
+ * der DB meldet der Datasource-Health-Check.
+ */
+@ApplicationScoped
+public class WarmUp {
+
+    private static final Logger LOG = Logger.getLogger(WarmUp.class);
+
+    @ConfigProperty(name = "warm-up.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "warm-up.connections", defaultValue = "10")
+    int connections;
+
+    @ConfigProperty(name = "warm-up.query-cycles", defaultValue = "20")
+    int queryCycles;
+
+    @ConfigProperty(name = "warm-up.hash-cycles", defaultValue = "3")
+    int hashCycles;
+
+    @ConfigProperty(name = "warm-up.jwt-cycles", defaultValue = "50")
+    int jwtCycles;
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    @Inject
+    Pool client;
+
+    @Inject
+    UserService userService;
+
+    @Inject
+    UserSustainabilityPrefService prefService;
+
+    @Inject
+    SustainabilityFilterService filterService;
+
+    @Inject
+    PasswordService passwordService;
+
+    private volatile boolean done;
+
+    void onStart(@Observes StartupEvent ev) {
+        if (!enabled) {
+            done = true;
+            return;
+        }
+        Infrastructure.getDefaultWorkerPool().execute(this::run);
+    }
+
+    /** true, sobald das Aufwärmen durch ist (oder abgeschaltet). */
+    public boolean isDone() {
+        return done;
+    }
+
+    private void run() {
+        long start = System.nanoTime();
+        try {
+            fillPools();
+            ManagedContext requestContext = Arc.container().requestContext();
+            requestContext.activate();
+            try {
+                for (int i = 0; i < queryCycles; i++) {
+                    exerciseQueries();
+                }
+            } finally {
+                requestContext.terminate();
+            }
+            exerciseCrypto();
+            LOG.infof("Warm-up finished in %d ms", Duration.ofNanos(System.nanoTime() - start).toMillis());
+        } catch (RuntimeException | SQLException e) {
+            LOG.warn("Warm-up aborted, accepting traffic anyway", e);
+        } finally {
+            done = true;
+        }
+    }
+
+    /** Verbindungen gleichzeitig halten, damit der Pool sie wirklich aufbaut, dann zurückgeben. */
+    private void fillPools() throws SQLException {
+        List<Connection> held = new ArrayList<>(connections);
+        try {
+            for (int i = 0; i < connections; i++) {
+                held.add(dataSource.getConnection());
+            }
+        } finally {
+            for (Connection c : held) {
+                c.close();
+            }
+        }
+        List<Uni<Void>> pings = new ArrayList<>(connections);
+        for (int i = 0; i < connections; i++) {
+            pings.add(client.query("SELECT 1").execute().replaceWithVoid());
+        }
+        Uni.join().all(pings).andFailFast().await().atMost(Duration.ofSeconds(30));
+    }
+
+    /** Lesende bzw. ins Leere laufende Pfade; jede Ausnahme hier ist das erwartete "nicht gefunden". */
+    private void exerciseQueries() {
+        UUID unknownId = UUID.randomUUID();
+        String unknownEmail = "warm-up-" + unknownId + "@invalid";
+        String unknownToken = UUID.randomUUID().toString();
+        User unknown = new User();
+        unknown.id = unknownId;
+        String anyKey = filterService.catalog().idsByKey().keySet().stream().findFirst().orElse("warm-up");
+
+        userService.findByEmail(unknownEmail);
+        expectFailure(() -> userService.authenticate(unknownEmail, "warm-up"));
+        expectFailure(() -> userService.promoteToSeller(unknownId));
+        expectFailure(() -> userService.resendActivationToken(unknownEmail));
+        expectFailure(() -> userService.confirmEmail(unknownToken));
+        expectFailure(() -> userService.loginWithIdentToken(unknownToken));
+        userService.changeProfile(unknownId, "warm-up", "warm-up");
+
+        prefService.getPreferenceViews(unknown);
+        prefService.getPreference(unknown, anyKey);
+        prefService.getPreferenceMap(unknown);
+        prefService.getPreferenceVector(unknown);
+        prefService.removePreference(unknown, anyKey);
+        prefService.getPreferenceViewsAsync(unknownId).await().atMost(Duration.ofSeconds(10));
+        prefService.getPreferenceMapAsync(unknownId).await().atMost(Duration.ofSeconds(10));
+    }
+
+    private void exerciseCrypto() {
+        for (int i = 0; i < hashCycles; i++) {
+            String salt = passwordService.generateSalt();
+            String hash = passwordService.hashPassword("warm-up-password", salt);
+            passwordService.verifyPassword("warm-up-password", salt, hash);
+        }
+        UUID id = UUID.randomUUID();
+        for (int i = 0; i < jwtCycles; i++) {
+            userService.generateJwt(id, "warm-up@invalid", "User");
+        }
+    }
+
+    private static void expectFailure(Runnable call) {
+        try {
+            call.run();
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            // erwartet: unbekannter User/Token
+        }
+    }
+}
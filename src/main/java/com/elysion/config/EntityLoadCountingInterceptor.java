@@ -0,0 +1,28 @@
+package com.elysion.config;
+
+import io.quarkus.arc.Arc;
+import io.quarkus.hibernate.orm.PersistenceUnitExtension;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.hibernate.Interceptor;
+import org.hibernate.type.Type;
+
+/**
+ * Zählt jede von Hibernate geladene Entity (Query-Ergebnisse wie nachgeladene Assoziationen) für den
+ * laufenden Request – ein N+1 fällt hier als Vielfaches der erwarteten Anzahl auf.
+ */
+@ApplicationScoped
+@PersistenceUnitExtension
+public class EntityLoadCountingInterceptor implements Interceptor {
+
+    @Inject
+    RequestDbStats stats;
+
+    @Override
+    public boolean onLoad(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+        if (Arc.container().requestContext().isActive()) {
+            stats.entityLoaded();
+        }
+        return false;
+    }
+}
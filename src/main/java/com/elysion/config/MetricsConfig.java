@@ -0,0 +1,38 @@
+package com.elysion.config;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Singleton;
+
+import java.util.List;
+
+/**
+ * Micrometer-Einstellungen für die Hot-Path-Metriken (Scrape unter {@code /q/metrics}).
+ */
+@Singleton
+public class MetricsConfig {
+
+    /** Timer/Summaries mit p50/p99/p999 und Histogramm-Buckets (für histogram_quantile über mehrere Instanzen). */
+    private static final List<String> HOT_PATHS = List.of(
+            "auth.", "password.", "jwt.", "user.token.lookup", "user.preferences.", "http.server.db.");
+
+    @Produces
+    @Singleton
+    public MeterFilter hotPathPercentiles() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (HOT_PATHS.stream().noneMatch(id.getName()::startsWith)) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder()
+                        .percentiles(0.5, 0.99, 0.999)
+                        .percentilesHistogram(true)
+                        .build()
+                        .merge(config);
+            }
+        };
+    }
+}
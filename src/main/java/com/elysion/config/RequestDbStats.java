@@ -0,0 +1,40 @@
+package com.elysion.config;
+
+import jakarta.enterprise.context.RequestScoped;
+
+/**
+ * DB-Aktivität des aktuellen Requests: von Hibernate abgesetzte SQL-Statements
+ * ({@link StatementCountingInspector}), geladene Entities ({@link EntityLoadCountingInterceptor})
+ * und begonnene Transaktionen ({@link TransactionCountingObserver}).
+ */
+@RequestScoped
+public class RequestDbStats {
+
+    private int statements;
+    private int entities;
+    private int transactions;
+
+    void statementPrepared() {
+        statements++;
+    }
+
+    void entityLoaded() {
+        entities++;
+    }
+
+    void transactionBegun() {
+        transactions++;
+    }
+
+    public int statements() {
+        return statements;
+    }
+
+    public int entities() {
+        return entities;
+    }
+
+    public int transactions() {
+        return transactions;
+    }
+}
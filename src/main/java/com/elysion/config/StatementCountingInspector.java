@@ -0,0 +1,28 @@
+package com.elysion.config;
+
+import io.quarkus.arc.Arc;
+import io.quarkus.hibernate.orm.PersistenceUnitExtension;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Zählt jedes von Hibernate vorbereitete Statement (HQL, Native Queries) für den laufenden Request.
+ * Außerhalb eines Requests (Scheduler, Startup) wird nichts gezählt. JDBC-Zugriffe per
+ * {@code Session#doWork} und der reaktive Client laufen an Hibernate vorbei und fehlen daher in der Zählung.
+ */
+@ApplicationScoped
+@PersistenceUnitExtension
+public class StatementCountingInspector implements StatementInspector {
+
+    @Inject
+    RequestDbStats stats;
+
+    @Override
+    public String inspect(String sql) {
+        if (Arc.container().requestContext().isActive()) {
+            stats.statementPrepared();
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,25 @@
+package com.elysion.config;
+
+import io.quarkus.arc.Arc;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.TransactionScoped;
+
+/**
+ * Zählt die im laufenden Request begonnenen JTA-Transaktionen
+ * ({@code @Transactional}, {@code QuarkusTransaction}), auch verschachtelte per {@code requiringNew()}.
+ */
+@ApplicationScoped
+public class TransactionCountingObserver {
+
+    @Inject
+    RequestDbStats stats;
+
+    void onBegin(@Observes @Initialized(TransactionScoped.class) Object event) {
+        if (Arc.container().requestContext().isActive()) {
+            stats.transactionBegun();
+        }
+    }
+}
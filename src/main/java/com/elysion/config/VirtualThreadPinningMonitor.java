@@ -0,0 +1,105 @@
+package com.elysion.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Meldet, wenn ein virtueller Thread seinen Carrier-Thread blockiert ("Pinning"), z.B. durch blockierende
+ * I/O innerhalb von {@code synchronized} im Hibernate-/Agroal-/JDBC-Pfad.
+ * <p>
+ * Liest das JFR-Event {@code jdk.VirtualThreadPinned} im laufenden Prozess mit, zählt es als
+ * {@code virtual_threads.pinned} (Tag {@code frame}: erster Frame aus der Anwendung bzw. oberster
+ * Nicht-JDK-Frame) und loggt den Stack je Frame einmal. Auf JDKs ohne virtuelle Threads passiert nichts.
+ */
+@ApplicationScoped
+public class VirtualThreadPinningMonitor {
+
+    private static final Logger LOG = Logger.getLogger(VirtualThreadPinningMonitor.class);
+    private static final String EVENT = "jdk.VirtualThreadPinned";
+
+    @ConfigProperty(name = "virtual-threads.pinning-monitor.enabled", defaultValue = "true")
+    boolean enabled;
+
+    /** Kürzere Pins (z.B. kurze Locks ohne I/O) sind harmlos und werden ignoriert. */
+    @ConfigProperty(name = "virtual-threads.pinning-monitor.threshold", defaultValue = "20ms")
+    Duration threshold;
+
+    @Inject
+    MeterRegistry registry;
+
+    private final Set<String> reported = ConcurrentHashMap.newKeySet();
+    private RecordingStream stream;
+
+    void onStart(@Observes StartupEvent ev) {
+        if (!enabled || Runtime.version().feature() < 21) return;
+        try {
+            stream = new RecordingStream();
+            stream.enable(EVENT).withThreshold(threshold).withStackTrace();
+            stream.onEvent(EVENT, this::onPinned);
+            stream.startAsync();
+            LOG.infof("Virtual thread pinning monitor active (threshold %s)", threshold);
+        } catch (RuntimeException e) {
+            LOG.warn("Could not start virtual thread pinning monitor", e);
+        }
+    }
+
+    void onStop(@Observes ShutdownEvent ev) {
+        if (stream != null) stream.close();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        String frame = culprit(event.getStackTrace());
+        Counter.builder("virtual_threads.pinned")
+                .description("Pinning virtueller Threads über dem Schwellwert")
+                .tag("frame", frame)
+                .register(registry)
+                .increment();
+        if (reported.add(frame)) {
+            LOG.warnf("Virtual thread pinned for %d ms at %s%n%s",
+                    event.getDuration().toMillis(), frame, format(event.getStackTrace()));
+        }
+    }
+
+    private static String culprit(RecordedStackTrace trace) {
+        if (trace == null) return "unknown";
+        List<RecordedFrame> frames = trace.getFrames();
+        String firstNonJdk = null;
+        for (RecordedFrame f : frames) {
+            String type = f.getMethod().getType().getName();
+            if (type.startsWith("com.elysion.")) return name(f);
+            if (firstNonJdk == null && !type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                firstNonJdk = name(f);
+            }
+        }
+        return firstNonJdk != null ? firstNonJdk : frames.isEmpty() ? "unknown" : name(frames.get(0));
+    }
+
+    private static String name(RecordedFrame f) {
+        return f.getMethod().getType().getName() + "." + f.getMethod().getName();
+    }
+
+    private static String format(RecordedStackTrace trace) {
+        if (trace == null) return "";
+        StringBuilder sb = new StringBuilder();
+        for (RecordedFrame f : trace.getFrames()) {
+            sb.append("\tat ").append(name(f)).append(':').append(f.getLineNumber()).append('\n');
+        }
+        return sb.toString();
+    }
+}
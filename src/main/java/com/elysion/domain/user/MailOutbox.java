@@ -0,0 +1,52 @@
+package com.elysion.domain.user;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Ausstehende Mail (transaktionale Outbox), verschickt vom {@code MailOutboxDispatcher}.
+ */
+@Entity
+@Table(name = "mail_outbox")
+public class MailOutbox extends PanacheEntityBase {
+
+    public static final String PENDING = "PENDING";
+    public static final String FAILED = "FAILED";
+
+    /** Ersetzt den Body aufgegebener Mails: der Klartext-Token-Link soll nicht liegen bleiben. */
+    public static final String REDACTED_BODY = "[redacted]";
+
+    @Id
+    @Column(name = "id", nullable = false, updatable = false)
+    public UUID id;
+
+    @Column(name = "kind", nullable = false, length = 30)
+    public String kind; // "ACTIVATION" | "EMAIL_CHANGE"
+
+    @Column(name = "recipient", nullable = false)
+    public String recipient;
+
+    @Column(name = "subject", nullable = false)
+    public String subject;
+
+    @Column(name = "body", nullable = false, columnDefinition = "TEXT")
+    public String body;
+
+    @Column(name = "status", nullable = false, length = 10)
+    public String status = PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    public int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    public OffsetDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 1000)
+    public String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    public OffsetDateTime createdAt;
+}
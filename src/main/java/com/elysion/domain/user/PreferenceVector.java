@@ -0,0 +1,100 @@
+package com.elysion.domain.user;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Kompakte Darstellung aller Präferenzen eines Users ({@code users.pref_vector}).
+ * <p>
+ * Pro Filter (Position = {@code sustainability_filter.bit_index}) drei Bits ab Bit {@code 3 * index}:
+ * ein Bit "gesetzt" und zwei Bits für den {@link Importance}-Ordinal. Das zusätzliche Bit ist nötig,
+ * weil die vier Importance-Stufen die zwei Bits bereits voll belegen. Neue Filter werden hinten angehängt,
+ * bestehende Vektoren bleiben daher gültig. Bits werden LSB-first je Byte gezählt.
+ */
+public final class PreferenceVector {
+
+    private static final int BITS_PER_FILTER = 3;
+    private static final Importance[] LEVELS = Importance.values();
+
+    private byte[] bits;
+
+    private PreferenceVector(byte[] bits) {
+        this.bits = bits;
+    }
+
+    public static PreferenceVector empty() {
+        return new PreferenceVector(new byte[0]);
+    }
+
+    public static PreferenceVector of(byte[] raw) {
+        return new PreferenceVector(raw == null ? new byte[0] : raw.clone());
+    }
+
+    /** @return die Importance an Position {@code index} oder null, wenn nicht gesetzt */
+    public Importance get(int index) {
+        int base = index * BITS_PER_FILTER;
+        if (!bit(base)) return null;
+        int ordinal = (bit(base + 1) ? 1 : 0) | (bit(base + 2) ? 2 : 0);
+        return LEVELS[ordinal];
+    }
+
+    /** Setzt die Importance an Position {@code index}; null entfernt die Präferenz. */
+    public void set(int index, Importance importance) {
+        int base = index * BITS_PER_FILTER;
+        if (importance == null) {
+            bit(base, false);
+            bit(base + 1, false);
+            bit(base + 2, false);
+            return;
+        }
+        int ordinal = importance.ordinal();
+        bit(base, true);
+        bit(base + 1, (ordinal & 1) != 0);
+        bit(base + 2, (ordinal & 2) != 0);
+    }
+
+    /**
+     * Map filterKey -> Importance für alle gesetzten Positionen.
+     *
+     * @param keyByIndex Filter-Katalog, Position -> filterKey
+     */
+    public Map<String, Importance> toMap(Map<Integer, String> keyByIndex) {
+        Map<String, Importance> map = new LinkedHashMap<>();
+        keyByIndex.forEach((index, key) -> {
+            Importance importance = get(index);
+            if (importance != null) map.put(key, importance);
+        });
+        return map;
+    }
+
+    /** Anzahl adressierbarer Positionen (inkl. nicht gesetzter). */
+    public int capacity() {
+        return bits.length * 8 / BITS_PER_FILTER;
+    }
+
+    /** Bytes ohne abschließende Null-Bytes. */
+    public byte[] toBytes() {
+        int len = bits.length;
+        while (len > 0 && bits[len - 1] == 0) len--;
+        return Arrays.copyOf(bits, len);
+    }
+
+    private boolean bit(int pos) {
+        int b = pos >>> 3;
+        return b < bits.length && (bits[b] & (1 << (pos & 7))) != 0;
+    }
+
+    private void bit(int pos, boolean value) {
+        int b = pos >>> 3;
+        if (b >= bits.length) {
+            if (!value) return;
+            bits = Arrays.copyOf(bits, b + 1);
+        }
+        if (value) {
+            bits[b] |= (byte) (1 << (pos & 7));
+        } else {
+            bits[b] &= (byte) ~(1 << (pos & 7));
+        }
+    }
+}
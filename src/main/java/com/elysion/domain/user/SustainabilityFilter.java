@@ -32,6 +32,10 @@ public class SustainabilityFilter extends PanacheEntityBase {
     @Column(name = "examples", nullable = false, length = 1000)
     public String examples;
 
+    /** Stabile Position im Präferenz-Vektor der User (wird per DB-Sequenz vergeben, neue Filter hinten) */
+    @Column(name = "bit_index", nullable = false, insertable = false, updatable = false)
+    public int bitIndex;
+
     /** Wie wichtig ist dir dieses Kriterium? */
     @Enumerated(EnumType.STRING)
     @Column(name = "importance", nullable = false, length = 20)
@@ -1,5 +1,6 @@
 package com.elysion.domain.user;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
 import jakarta.persistence.*;
 
@@ -23,12 +24,14 @@ public class User extends PanacheEntityBase {
     @Column(name = "email", nullable = false, unique = true)
     public String email;
 
+    @JsonIgnore
     @Column(name = "password_hash", nullable = false)
     public String passwordHash;
 
     @Column(name = "created_at", nullable = false)
     public OffsetDateTime createdAt;
 
+    @JsonIgnore
     @Column(name = "salt", nullable = false)
     public String salt;
 
@@ -38,9 +41,18 @@ public class User extends PanacheEntityBase {
     @Column(name = "active", nullable = false)
     public boolean active = false;
 
+    /** Von einem Admin gesperrt; unabhängig von {@link #active} (E-Mail bestätigt) */
+    @Column(name = "disabled", nullable = false)
+    public boolean disabled = false;
+
     @Column(name = "pending_email", unique = true)
     public String pendingEmail;
 
+    /** Gepackte Präferenzen (siehe {@link PreferenceVector}); null = noch nicht aufgebaut */
+    @JsonIgnore
+    @Column(name = "pref_vector")
+    public byte[] prefVector;
+
     // @Column(name = "activation_token", unique = true)
     // public String activationToken;
 
@@ -0,0 +1,20 @@
+package com.elysion.domain.user;
+
+import io.quarkus.hibernate.orm.panache.common.ProjectedFieldName;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Read-only Projektion einer Präferenz: nur Filter-Key und Importance, ohne gemanagte Entities.
+ * Wird per {@code select new} in einer einzigen Abfrage (Join auf den Filter) geladen.
+ */
+public record UserPreferenceView(@ProjectedFieldName("filter.key") String filterKey,
+                                 Importance importance) {
+
+    /** Map filterKey -> Importance, z. B. als Fallback für Users ohne Präferenz-Vektor. */
+    public static Map<String, Importance> toMap(List<UserPreferenceView> views) {
+        return views.stream().collect(Collectors.toMap(UserPreferenceView::filterKey, UserPreferenceView::importance));
+    }
+}
@@ -0,0 +1,17 @@
+package com.elysion.domain.user;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Read-only Projektion eines Users für Admin-Listen und -Exporte: ohne Hash, Salt und Präferenzen.
+ */
+public record UserSummary(UUID id,
+                          String email,
+                          String firstName,
+                          String lastName,
+                          String role,
+                          boolean active,
+                          boolean disabled,
+                          OffsetDateTime createdAt) {
+}
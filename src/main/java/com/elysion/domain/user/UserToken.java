@@ -2,11 +2,16 @@ package com.elysion.domain.user;
 
 import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
 import jakarta.persistence.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.OffsetDateTime;
+import java.util.Locale;
 import java.util.UUID;
 
 @Entity
-@Table(name = "user_token", uniqueConstraints = @UniqueConstraint(columnNames = "token"))
+@Table(name = "user_token")
 public class UserToken extends PanacheEntityBase {
     @Id
     @Column(name = "id", nullable = false)
@@ -16,8 +21,9 @@ public class UserToken extends PanacheEntityBase {
     @JoinColumn(name = "user_id", nullable = false)
     public User user;
 
-    @Column(name = "token", nullable = false, length = 255)
-    public String token;
+    /** SHA-256 des kanonischen Tokens; der Klartext wird nur per Mail verschickt, nie gespeichert */
+    @Column(name = "token_digest", nullable = false, length = 32)
+    public byte[] tokenDigest;
 
     @Column(name = "type", nullable = false, length = 20)
     public String type; // "ACTIVATION" | "EMAIL_CHANGE"
@@ -25,9 +31,25 @@ public class UserToken extends PanacheEntityBase {
     @Column(name = "created_at", nullable = false)
     public OffsetDateTime createdAt;
 
+    @Column(name = "expires_at", nullable = false)
+    public OffsetDateTime expiresAt;
+
     @Column(name = "confirmed_at")
     public OffsetDateTime confirmedAt;
 
     @Column(name = "used_at")
     public OffsetDateTime usedAt;
-}
\ No newline at end of file
+
+    /**
+     * Digest eines Roh-Tokens: getrimmt und klein geschrieben (wie bisher {@code lower(token)}),
+     * dann SHA-256. Lookup erfolgt per exaktem Vergleich auf {@code (token_digest, type)}.
+     */
+    public static byte[] digest(String rawToken) {
+        String canonical = rawToken.trim().toLowerCase(Locale.ROOT);
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.elysion.interfaces.user;
+
+import com.elysion.config.RequestDbStats;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.ext.Provider;
+
+import java.lang.reflect.Method;
+
+/**
+ * Erfasst die Hibernate-Aktivität je Request als {@code http.server.db.statements}, {@code .entities} und
+ * {@code .transactions} (Tag {@code endpoint} = Resource-Klasse.Methode).
+ * <p>
+ * Reine Metrik, der Request selbst bleibt unberührt. Die {@link QueryBudget}s prüft {@code QueryBudgetTest}
+ * (zählt am Draht, also auch JDBC und den reaktiven Client).
+ */
+@Provider
+public class DbActivityFilter implements ContainerResponseFilter {
+
+    @Inject
+    RequestDbStats stats;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Context
+    ResourceInfo resourceInfo;
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        Method method = resourceInfo.getResourceMethod();
+        if (method == null) return;
+        String endpoint = resourceInfo.getResourceClass().getSimpleName() + "." + method.getName();
+        record("http.server.db.statements", "Hibernate-SQL-Statements je Request", endpoint, stats.statements());
+        record("http.server.db.entities", "Geladene Entities je Request", endpoint, stats.entities());
+        record("http.server.db.transactions", "Begonnene Transaktionen je Request", endpoint, stats.transactions());
+    }
+
+    private void record(String name, String description, String endpoint, int value) {
+        DistributionSummary.builder(name)
+                .description(description)
+                .tag("endpoint", endpoint)
+                .register(registry)
+                .record(value);
+    }
+}
@@ -0,0 +1,27 @@
+package com.elysion.interfaces.user;
+
+import com.elysion.security.LoginThrottledException;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.ExceptionMapper;
+import jakarta.ws.rs.ext.Provider;
+
+import java.util.Map;
+
+/**
+ * Gedrosselter Login -> 429 mit Retry-After.
+ */
+@Provider
+public class LoginThrottledMapper implements ExceptionMapper<LoginThrottledException> {
+
+    @Override
+    public Response toResponse(LoginThrottledException e) {
+        long seconds = Math.max(1, (e.getRetryAfter().toMillis() + 999) / 1000);
+        return Response.status(Response.Status.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, seconds)
+                .type(MediaType.APPLICATION_JSON)
+                .entity(Map.of("error", e.getMessage(), "code", "TOO_MANY_ATTEMPTS"))
+                .build();
+    }
+}
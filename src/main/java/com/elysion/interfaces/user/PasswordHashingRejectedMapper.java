@@ -0,0 +1,31 @@
+package com.elysion.interfaces.user;
+
+import com.elysion.security.PasswordHashingRejectedException;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.ExceptionMapper;
+import jakarta.ws.rs.ext.Provider;
+import org.jboss.logging.Logger;
+
+import java.util.Map;
+
+/**
+ * Überlasteter Hashing-Pool -> 503 mit Retry-After, damit Clients/Load-Balancer zurückweichen.
+ */
+@Provider
+public class PasswordHashingRejectedMapper implements ExceptionMapper<PasswordHashingRejectedException> {
+
+    private static final Logger LOG = Logger.getLogger(PasswordHashingRejectedMapper.class);
+
+    @Override
+    public Response toResponse(PasswordHashingRejectedException e) {
+        LOG.warn(e.getMessage());
+        long seconds = Math.max(1, e.getRetryAfter().toSeconds());
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, seconds)
+                .type(MediaType.APPLICATION_JSON)
+                .entity(Map.of("error", e.getMessage(), "code", "SERVICE_OVERLOADED"))
+                .build();
+    }
+}
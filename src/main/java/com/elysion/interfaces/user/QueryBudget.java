@@ -0,0 +1,27 @@
+package com.elysion.interfaces.user;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Obergrenze der DB-Aktivität je Aufruf eines Endpoints (ungecachter Principal, schlechtester regulärer Pfad).
+ * Geprüft von {@code QueryBudgetTest}; {@code -1} = nicht geprüft.
+ * <p>
+ * Statements und Transaktionen zählen am Draht, also alles, was an PostgreSQL geht – auch JDBC per
+ * {@code Session#doWork} und der reaktive Client. Entities sind die von Hibernate geladenen.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface QueryBudget {
+
+    /** SQL-Statements */
+    int statements() default -1;
+
+    /** geladene Entities */
+    int entities() default -1;
+
+    /** begonnene Transaktionen */
+    int transactions() default -1;
+}
@@ -2,22 +2,24 @@ package com.elysion.interfaces.user;
 
 import com.elysion.application.user.SustainabilityFilterService;
 import com.elysion.domain.user.SustainabilityFilter;
+import io.smallrye.common.annotation.NonBlocking;
 import jakarta.annotation.security.PermitAll;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
-import jakarta.ws.rs.core.MediaType;
-import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.*;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
 import org.eclipse.microprofile.openapi.annotations.media.ExampleObject;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 
-import java.util.List;
+import java.time.Duration;
 
 @Path("/filters")
 @Produces(MediaType.APPLICATION_JSON)
@@ -27,27 +29,48 @@ public class SustainabilityFilterResource {
     @Inject
     SustainabilityFilterService filterService;
 
+    @ConfigProperty(name = "filters.cache.max-age", defaultValue = "5m")
+    Duration maxAge;
+
     @GET
     @PermitAll
+    @NonBlocking
     @Operation(
             summary = "Alle Nachhaltigkeitsfilter abrufen",
             description = "Gibt eine Liste aller verfügbaren Nachhaltigkeitsfilter zurück."
     )
-    @APIResponse(
-            responseCode = "200",
-            description = "Liste aller Filter",
-            content = @Content(
-                    mediaType = "application/json",
-                    schema = @Schema(implementation = SustainabilityFilter.class),
-                    examples = @ExampleObject(
-                            name = "example",
-                            value = "[{\"id\":1,\"key\":\"bio\",\"label\":\"Bio/Organic\",\"description\":\"Products made from organic materials without harmful chemicals\"}," +
-                                    "{\"id\":2,\"key\":\"ethical-work\",\"label\":\"Ethical Work Enforced\",\"description\":\"Fair wages and safe working conditions guaranteed\"}]"
+    @APIResponses({
+            @APIResponse(
+                    responseCode = "200",
+                    description = "Liste aller Filter",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = SustainabilityFilter.class),
+                            examples = @ExampleObject(
+                                    name = "example",
+                                    value = "[{\"id\":1,\"key\":\"bio\",\"label\":\"Bio/Organic\",\"description\":\"Products made from organic materials without harmful chemicals\"}," +
+                                            "{\"id\":2,\"key\":\"ethical-work\",\"label\":\"Ethical Work Enforced\",\"description\":\"Fair wages and safe working conditions guaranteed\"}]"
+                            )
                     )
-            )
-    )
-    public Response getAllFilters() {
-        List<SustainabilityFilter> filters = filterService.getAllFilters();
-        return Response.ok(filters).build();
+            ),
+            @APIResponse(responseCode = "304", description = "Katalog unverändert (If-None-Match)")
+    })
+    @QueryBudget(statements = 0, entities = 0, transactions = 0)
+    public Response getAllFilters(@Context Request request) {
+        // Antwort kommt vorgerendert aus dem Snapshot, Hibernate/Jackson werden nicht angefasst -> Event-Loop
+        SustainabilityFilterService.FilterCatalog catalog = filterService.catalog();
+        EntityTag etag = new EntityTag(catalog.etag());
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setMaxAge((int) maxAge.toSeconds());
+        cacheControl.setMustRevalidate(true);
+
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(etag);
+        if (notModified != null) {
+            return notModified.cacheControl(cacheControl).build();
+        }
+        return Response.ok(catalog.json(), MediaType.APPLICATION_JSON_TYPE)
+                .tag(etag)
+                .cacheControl(cacheControl)
+                .build();
     }
 }
\ No newline at end of file
@@ -1,24 +1,44 @@
 package com.elysion.interfaces.user;
 
+import com.elysion.application.user.SustainabilityFilterService;
+import com.elysion.application.user.UserDirectoryService;
+import com.elysion.application.user.UserImportService;
+import com.elysion.application.user.UserPrincipalResolver;
 import com.elysion.application.user.UserService;
 import com.elysion.domain.user.User;
-import com.elysion.security.PasswordService;
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
 import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.SecurityContext;
+import jakarta.ws.rs.core.StreamingOutput;
 import org.jboss.logging.Logger;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
 
 @Path("/admin")
+@RunOnVirtualThread
 public class UserAdminResource {
 
     private static final Logger LOG = Logger.getLogger(UserAdminResource.class);
@@ -27,7 +47,16 @@ public class UserAdminResource {
     UserService userService;
 
     @Inject
-    PasswordService passwordService;
+    UserPrincipalResolver principalResolver;
+
+    @Inject
+    SustainabilityFilterService filterService;
+
+    @Inject
+    UserDirectoryService directoryService;
+
+    @Inject
+    UserImportService importService;
 
 
     public static class ReauthRequest {
@@ -35,10 +64,136 @@ public class UserAdminResource {
         public String adminPassword; // Step-up Reauth
     }
 
+    /**
+     * Userliste, sortiert nach {@code (createdAt, id)}, seitenweise per Cursor:
+     * {@code next} aus der Antwort als {@code after} der nächsten Anfrage übergeben.
+     */
+    @GET
+    @Path("/users")
+    @RolesAllowed("Admin")
+    @QueryBudget(statements = 1, entities = 0, transactions = 0)
+    public Response listUsers(@QueryParam("role") String role,
+                              @QueryParam("active") Boolean active,
+                              @QueryParam("after") String after,
+                              @QueryParam("limit") @DefaultValue("50") int limit) {
+        try {
+            UserDirectoryService.Page page = directoryService.list(role, active, after, limit);
+            Map<String, Object> body = new HashMap<>();
+            body.put("items", page.items());
+            body.put("next", page.next());
+            return Response.ok(body, MediaType.APPLICATION_JSON_TYPE).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", e.getMessage())).build();
+        }
+    }
+
+    /**
+     * Alle (gefilterten) User als NDJSON oder CSV, gestreamt direkt aus einem DB-Cursor.
+     * Läuft über JDBC statt Hibernate, in einer read-only Transaktion (der Cursor braucht sie).
+     */
+    @GET
+    @Path("/users/export")
+    @RolesAllowed("Admin")
+    @QueryBudget(statements = 1, entities = 0, transactions = 1)
+    public Response exportUsers(@QueryParam("role") String role,
+                                @QueryParam("active") Boolean active,
+                                @QueryParam("format") @DefaultValue("ndjson") String format) {
+        UserDirectoryService.ExportFormat exportFormat;
+        try {
+            exportFormat = UserDirectoryService.ExportFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", "format must be ndjson or csv")).build();
+        }
+        boolean csv = exportFormat == UserDirectoryService.ExportFormat.CSV;
+        StreamingOutput stream = out -> directoryService.export(role, active, exportFormat, out);
+        return Response.ok(stream, csv ? "text/csv; charset=utf-8" : "application/x-ndjson")
+                .header("Content-Disposition", "attachment; filename=\"users." + (csv ? "csv" : "ndjson") + "\"")
+                .build();
+    }
+
+    /**
+     * Massenimport als NDJSON (eine Zeile je User, mit {@code password} oder {@code passwordHash} + {@code salt}).
+     * Im Ergebnis stehen nur die nicht angelegten Zeilen, mit {@code report=all} alle.
+     * Gelesen werden höchstens {@code user.import.max-rows} Zeilen; den Rest ab {@code nextLine} erneut schicken.
+     * Budget je Chunk ({@code user.import.chunk-size} Zeilen): Abgleich belegter Adressen und ein Insert.
+     */
+    @POST
+    @Path("/users/import")
+    @Consumes({"application/x-ndjson", MediaType.TEXT_PLAIN})
+    @RolesAllowed("Admin")
+    @QueryBudget(statements = 2, entities = 0, transactions = 0)
+    public Response importUsers(InputStream body,
+                                @QueryParam("report") @DefaultValue("errors") String report) throws IOException {
+        try {
+            UserImportService.ImportReport result = importService.importUsers(body, "all".equals(report));
+            return Response.ok(result, MediaType.APPLICATION_JSON_TYPE).build();
+        } catch (IllegalStateException e) {
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(Map.of("error", e.getMessage())).build();
+        }
+    }
+
+    public static class BulkRoleRequest {
+        @NotEmpty
+        public List<UUID> ids;
+        @NotBlank
+        public String role; // "User" | "Seller"
+    }
+
+    public static class BulkActivationRequest {
+        @NotEmpty
+        public List<UUID> ids;
+        @NotNull
+        public Boolean active;
+    }
+
+    /**
+     * Rolle für viele User in einem Statement; Ergebnis je ID in Reihenfolge der Anfrage
+     * (UPDATED, NOT_FOUND, NOT_ACTIVATED, ADMIN_SKIPPED, CONCURRENT_UPDATE).
+     */
+    @PUT
+    @Path("/users/role")
+    @RolesAllowed("Admin")
+    @QueryBudget(statements = 1, entities = 0, transactions = 1)
+    public Response changeRoles(@Valid BulkRoleRequest body) {
+        try {
+            return bulkResponse(userService.changeRoles(body.ids, body.role));
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", e.getMessage())).build();
+        }
+    }
+
+    /**
+     * Sperren ({@code active=false}) bzw. Entsperren und Aktivieren für viele User in einem Statement;
+     * Ergebnis je ID in Reihenfolge der Anfrage (UPDATED, NOT_FOUND, ADMIN_SKIPPED, CONCURRENT_UPDATE).
+     */
+    @PUT
+    @Path("/users/activation")
+    @RolesAllowed("Admin")
+    @QueryBudget(statements = 1, entities = 0, transactions = 1)
+    public Response changeActivation(@Valid BulkActivationRequest body) {
+        try {
+            return bulkResponse(userService.changeActivation(body.ids, body.active));
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", e.getMessage())).build();
+        }
+    }
+
+    private static Response bulkResponse(List<UserService.BulkResult> results) {
+        long updated = results.stream().filter(r -> r.outcome() == UserService.BulkOutcome.UPDATED).count();
+        LOG.infof("Bulk change: %d of %d users updated", updated, results.size());
+        return Response.ok(Map.of("updated", updated, "results", results), MediaType.APPLICATION_JSON_TYPE).build();
+    }
+
     @PUT
     @Path("/users/{id}/role/seller")
     @RolesAllowed("Admin")
     @Transactional
+    @QueryBudget(statements = 2, entities = 1, transactions = 1)
     public Response makeSeller(@PathParam("id") UUID userId) {
         LOG.info("makeSeller called: " +  userId);
         try {
@@ -59,16 +214,19 @@ public class UserAdminResource {
 
     @PUT
     @Path("users/{id}/role/admin")
-    @Transactional
+    @RolesAllowed("Admin")
+    @QueryBudget(statements = 4, entities = 2, transactions = 1)
     public Response makeAdmin(@PathParam("id") UUID userId,
                               ReauthRequest body,
                               @Context SecurityContext ctx) {
         // Step-up: Admin muss eigenes Passwort bestätigen
-        String actingEmail = ctx.getUserPrincipal().getName();
-        User acting = userService.findByEmail(actingEmail);
+        // (bewusst ohne @Transactional: BCrypt soll keine DB-Connection halten,
+        //  promoteToAdmin öffnet danach seine eigene Transaktion)
+        User acting = principalResolver.resolve(ctx.getUserPrincipal());
         if (acting == null) return Response.status(Response.Status.UNAUTHORIZED).build();
 
-        if (!passwordService.verifyPassword(body.adminPassword, acting.salt, acting.passwordHash)) {
+        // Hash frisch aus der DB, nicht aus dem gecachten Principal
+        if (body == null || body.adminPassword == null || !userService.verifyPassword(acting.id, body.adminPassword)) {
             return Response.status(Response.Status.UNAUTHORIZED)
                     .entity(Map.of("error","Reauthentication failed")).build();
         }
@@ -86,4 +244,19 @@ public class UserAdminResource {
             return Response.status(Response.Status.CONFLICT).entity(Map.of("error", e.getMessage())).build();
         }
     }
+
+    /** Filter-Katalog nach einer Liquibase-Änderung neu laden (Snapshot + ETag für GET /filters). */
+    @POST
+    @Path("/filters/reload")
+    @RolesAllowed("Admin")
+    @QueryBudget(statements = 1, transactions = 0)
+    public Response reloadFilters() {
+        SustainabilityFilterService.FilterCatalog catalog = filterService.reload();
+        LOG.info("Filter catalogue reloaded by admin");
+        return Response.ok(Map.of(
+                "message", "Filter catalogue reloaded",
+                "filters", catalog.filters().size(),
+                "etag", catalog.etag()
+        )).build();
+    }
 }
\ No newline at end of file
@@ -1,7 +1,11 @@
 package com.elysion.interfaces.user;
 
+import com.elysion.application.user.UserPrincipalResolver;
 import com.elysion.application.user.UserService;
 import com.elysion.domain.user.User;
+import io.smallrye.common.annotation.NonBlocking;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import io.smallrye.mutiny.Uni;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
@@ -41,6 +45,7 @@ import static jakarta.ws.rs.core.Response.Status.NOT_FOUND;
                 bearerFormat = "JWT"
         )
 })
+@RunOnVirtualThread
 public class UserEditProfileResource {
 
     private static final Logger LOG = Logger.getLogger(UserEditProfileResource.class);
@@ -48,6 +53,9 @@ public class UserEditProfileResource {
     @Inject
     UserService userService;
 
+    @Inject
+    UserPrincipalResolver principalResolver;
+
     @PUT
     @Path("/email")
     @RolesAllowed("User")
@@ -72,9 +80,9 @@ public class UserEditProfileResource {
                     content = @Content(mediaType = "application/json",
                             examples = @ExampleObject(value = "{\"error\":\"E-Mail already in use\"}")))
     })
+    @QueryBudget(statements = 8, entities = 1, transactions = 1)
     public Response changeEmail(@Valid UserResource.ChangeEmailRequest request, @Context SecurityContext ctx) {
-        String email = ctx.getUserPrincipal().getName();
-        User user = userService.findByEmail(email);
+        User user = principalResolver.resolveForUpdate(ctx.getUserPrincipal());
         if (user == null) {
             return Response.status(NOT_FOUND).build();
         }
@@ -89,7 +97,6 @@ public class UserEditProfileResource {
     @PUT
     @Path("/password")
     @RolesAllowed("User")
-    @Transactional
     @Operation(
             summary = "Passwort ändern",
             description = "Ändert das Passwort des eingeloggten Users."
@@ -112,9 +119,9 @@ public class UserEditProfileResource {
                             examples = @ExampleObject(value = "{\"error\":\"Invalid current password\"}"))),
             @APIResponse(responseCode = "404", description = "User nicht gefunden")
     })
+    @QueryBudget(statements = 3, entities = 1, transactions = 1)
     public Response changePassword(@Valid UserResource.ChangePasswordRequest request, @Context SecurityContext ctx) {
-        String email = ctx.getUserPrincipal().getName();
-        User user = userService.findByEmail(email);
+        User user = principalResolver.resolve(ctx.getUserPrincipal());
         if (user == null) {
             return Response.status(NOT_FOUND).build();
         }
@@ -146,15 +153,13 @@ public class UserEditProfileResource {
                             examples = @ExampleObject(value = "{\"message\":\"Profile updated\"}"))),
             @APIResponse(responseCode = "404", description = "User nicht gefunden")
     })
+    @QueryBudget(statements = 2, entities = 1, transactions = 1)
     public Response changeProfile(@Valid UserResource.ChangeProfileRequest req,
                                   @Context SecurityContext ctx) {
-        User user = userService.findByEmail(ctx.getUserPrincipal().getName());
-        if (user == null) {
+        User user = principalResolver.resolve(ctx.getUserPrincipal());
+        if (user == null || !userService.changeProfile(user.id, req.firstName, req.lastName)) {
             return Response.status(NOT_FOUND).build();
         }
-        user.firstName = req.firstName;
-        user.lastName = req.lastName;
-        user.persist();
         return Response.ok(Map.of("message","Profile updated")).build();
     }
 
@@ -171,13 +176,13 @@ public class UserEditProfileResource {
                     content = @Content(schema = @Schema(implementation = User.class))),
             @APIResponse(responseCode = "404", description = "User nicht gefunden")
     })
-    public Response me(@Context SecurityContext ctx) {
-        String email = ctx.getUserPrincipal().getName();
-        User user = userService.findByEmail(email);  // gibt null zurück, wenn nicht gefunden
-        if (user == null) {
-            // Kein User mit dieser E‑Mail – 404 Not Found
-            return Response.status(NOT_FOUND).build();
-        }
-        return Response.ok(user).build();
+    @NonBlocking
+    @QueryBudget(statements = 1, entities = 0, transactions = 0)
+    public Uni<Response> me(@Context SecurityContext ctx) {
+        // Event-Loop: Cache-Treffer ohne DB, sonst reaktiver Client; null, wenn nicht gefunden
+        return principalResolver.resolveAsync(ctx.getUserPrincipal())
+                .map(user -> user == null
+                        ? Response.status(NOT_FOUND).build()  // Kein User mit dieser E‑Mail – 404 Not Found
+                        : Response.ok(user).build());
     }
 }
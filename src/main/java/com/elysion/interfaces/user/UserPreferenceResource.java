@@ -1,10 +1,15 @@
 package com.elysion.interfaces.user;
 
+import com.elysion.application.user.SustainabilityFilterService;
+import com.elysion.application.user.UserPrincipalResolver;
 import com.elysion.application.user.UserSustainabilityPrefService;
-import com.elysion.application.user.UserService;
 import com.elysion.domain.user.Importance;
 import com.elysion.domain.user.User;
+import com.elysion.domain.user.UserPreferenceView;
 import com.elysion.domain.user.UserSustainabilityPref;
+import io.smallrye.common.annotation.NonBlocking;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import io.smallrye.mutiny.Uni;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.inject.Inject;
 import jakarta.validation.Valid;
@@ -25,6 +30,7 @@ import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
 import org.eclipse.microprofile.openapi.annotations.security.SecurityRequirement;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 
+import java.util.Base64;
 import java.util.List;
 import java.util.Map;
 @Path("/users/preferences")
@@ -33,14 +39,18 @@ import java.util.Map;
 @RolesAllowed("User")
 @Tag(name = "User Preferences", description = "Nachhaltigkeits-Präferenzen je Nutzer")
 @SecurityRequirement(name = "bearerAuth")
+@RunOnVirtualThread
 public class UserPreferenceResource {
 
     @Inject
-    UserService userService;
+    UserPrincipalResolver principalResolver;
 
     @Inject
     UserSustainabilityPrefService prefService;
 
+    @Inject
+    SustainabilityFilterService filterService;
+
     // --- DTOs ---
     @Schema(name = "SetPreferenceRequest", description = "Wert für eine Präferenz setzen")
     public static class SetPreferenceRequest {
@@ -53,27 +63,39 @@ public class UserPreferenceResource {
         public String filterKey;
         public Importance importance;
 
-        public static PreferenceDTO from(UserSustainabilityPref p) {
+        public static PreferenceDTO from(UserPreferenceView v) {
+            return of(v.filterKey(), v.importance());
+        }
+
+        public static PreferenceDTO of(String filterKey, Importance importance) {
             PreferenceDTO dto = new PreferenceDTO();
-            dto.filterKey = p.filter.key;
-            dto.importance = p.importance;
+            dto.filterKey = filterKey;
+            dto.importance = importance;
             return dto;
         }
     }
 
     // Hilfsfunktion: aktuellen User laden
     private User currentUserOr404(SecurityContext ctx) {
-        String email = ctx.getUserPrincipal() != null ? ctx.getUserPrincipal().getName() : null;
-        if (email == null) {
+        if (ctx.getUserPrincipal() == null) {
             throw new WebApplicationException("No principal", Response.Status.UNAUTHORIZED);
         }
-        User u = userService.findByEmail(email);
+        User u = principalResolver.resolve(ctx.getUserPrincipal());
         if (u == null) {
             throw new WebApplicationException("User not found", Response.Status.NOT_FOUND);
         }
         return u;
     }
 
+    // Wie currentUserOr404, aber nicht blockierend (für die Lesepfade auf dem Event-Loop)
+    private Uni<User> currentUserOr404Async(SecurityContext ctx) {
+        if (ctx.getUserPrincipal() == null) {
+            return Uni.createFrom().failure(new WebApplicationException("No principal", Response.Status.UNAUTHORIZED));
+        }
+        return principalResolver.resolveAsync(ctx.getUserPrincipal())
+                .onItem().ifNull().failWith(() -> new WebApplicationException("User not found", Response.Status.NOT_FOUND));
+    }
+
     // GET /users/preferences  -> alle Präferenzen des Users (als Liste)
     @GET
     @Operation(summary = "Alle Präferenzen abrufen",
@@ -90,11 +112,15 @@ public class UserPreferenceResource {
                     )
             )
     )
-    public Response getAll(@Context SecurityContext ctx) {
-        User user = currentUserOr404(ctx);
-        List<UserSustainabilityPref> prefs = prefService.getPreferences(user);
-        List<PreferenceDTO> dtos = prefs.stream().map(PreferenceDTO::from).toList();
-        return Response.ok(dtos).build();
+    @NonBlocking
+    @QueryBudget(statements = 2, entities = 0, transactions = 0)
+    public Uni<Response> getAll(@Context SecurityContext ctx) {
+        return currentUserOr404Async(ctx)
+                .chain(user -> prefService.getPreferenceViewsAsync(user.id))
+                .map(views -> {
+                    List<PreferenceDTO> dtos = views.stream().map(PreferenceDTO::from).toList();
+                    return Response.ok(dtos).build();
+                });
     }
 
     // GET /users/preferences/map -> Map filterKey -> Importance (praktisch fürs FE)
@@ -111,10 +137,85 @@ public class UserPreferenceResource {
                     examples = @ExampleObject(value = "{\"bio\":\"IMPORTANT\",\"ethical-work\":\"NICE_TO_HAVE\"}")
             )
     )
-    public Response getMap(@Context SecurityContext ctx) {
+    @NonBlocking
+    @QueryBudget(statements = 3, entities = 0, transactions = 0)
+    public Uni<Response> getMap(@Context SecurityContext ctx) {
+        return currentUserOr404Async(ctx)
+                .chain(user -> prefService.getPreferenceMapAsync(user.id))
+                .map(map -> Response.ok(map).build());
+    }
+
+    // GET /users/preferences/compact -> gepackter Präferenz-Vektor
+    @GET
+    @Path("/compact")
+    @Operation(summary = "Präferenzen kompakt abrufen",
+            description = "Liefert alle Präferenzen als gepackten Vektor (Base64). Je Filter drei Bits ab Bit 3 * bitIndex " +
+                    "(siehe GET /filters): Bit 0 = gesetzt, Bit 1-2 = Importance-Ordinal, LSB-first je Byte. " +
+                    "'catalog' ist das ETag des Filter-Katalogs, zu dem die Positionen gehören.")
+    @APIResponse(
+            responseCode = "200",
+            description = "OK",
+            content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = Map.class),
+                    examples = @ExampleObject(value = "{\"catalog\":\"3f2a9c0d1e4b5a6f7c8d9e0f1a2b3c4d\",\"vector\":\"HQ==\"}")
+            )
+    )
+    @QueryBudget(statements = 3, entities = 1, transactions = 0)
+    public Response getCompact(@Context SecurityContext ctx) {
+        User user = currentUserOr404(ctx);
+        byte[] vector = prefService.getPreferenceVector(user);
+        return Response.ok(Map.of(
+                "catalog", filterService.catalog().etag(),
+                "vector", Base64.getEncoder().encodeToString(vector)
+        )).build();
+    }
+
+    // PUT /users/preferences  Body: { "bio": "IMPORTANT", "ethical-work": "NOT_IMPORTANT" }
+    @PUT
+    @Operation(summary = "Mehrere Präferenzen setzen",
+            description = "Setzt die Importance für mehrere Filter-Keys in einem Request (z.B. Onboarding-Formular). " +
+                    "Nicht enthaltene Präferenzen bleiben unverändert. Liefert die vollständige, resultierende Map.")
+    @APIResponses({
+            @APIResponse(
+                    responseCode = "200",
+                    description = "OK",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = Map.class),
+                            examples = @ExampleObject(value = "{\"bio\":\"IMPORTANT\",\"ethical-work\":\"NOT_IMPORTANT\"}")
+                    )
+            ),
+            @APIResponse(
+                    responseCode = "400",
+                    description = "Ungültiger Filter-Key oder Payload",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = Map.class),
+                            examples = @ExampleObject(value = "{\"error\":\"Unknown filter key(s): foo\"}")
+                    )
+            )
+    })
+    @QueryBudget(statements = 7, entities = 1, transactions = 1)
+    public Response setPreferences(
+            @org.eclipse.microprofile.openapi.annotations.parameters.RequestBody(
+                    required = true,
+                    content = @Content(
+                            schema = @Schema(implementation = Map.class),
+                            examples = @ExampleObject(value = "{\"bio\":\"IMPORTANT\",\"ethical-work\":\"NOT_IMPORTANT\"}")
+                    )
+            )
+            Map<String, Importance> preferences,
+            @Context SecurityContext ctx
+    ) {
         User user = currentUserOr404(ctx);
-        Map<String, Importance> map = prefService.getPreferenceMap(user);
-        return Response.ok(map).build();
+        try {
+            return Response.ok(prefService.setPreferences(user, preferences)).build();
+        } catch (IllegalArgumentException iae) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", iae.getMessage()))
+                    .build();
+        }
     }
 
     // GET /users/preferences/{filterKey} -> einzelne Präferenz
@@ -142,6 +243,7 @@ public class UserPreferenceResource {
                     )
             )
     })
+    @QueryBudget(statements = 2, entities = 2, transactions = 0)
     public Response getOne(
             @Parameter(description = "Filter-Schlüssel", required = true, examples = @ExampleObject(value = "bio"))
             @PathParam("filterKey") String filterKey,
@@ -149,7 +251,7 @@ public class UserPreferenceResource {
     ) {
         User user = currentUserOr404(ctx);
         return prefService.getPreference(user, filterKey)
-                .map(p -> Response.ok(PreferenceDTO.from(p)).build())
+                .map(p -> Response.ok(PreferenceDTO.of(filterKey, p.importance)).build())
                 .orElse(Response.status(Response.Status.NOT_FOUND)
                         .entity(Map.of("error", "No preference for filter: " + filterKey))
                         .build());
@@ -180,6 +282,7 @@ public class UserPreferenceResource {
                     )
             )
     })
+    @QueryBudget(statements = 6, entities = 2, transactions = 1)
     public Response setPreference(
             @Parameter(description = "Filter-Schlüssel", required = true, examples = @ExampleObject(value = "bio"))
             @PathParam("filterKey") String filterKey,
@@ -196,7 +299,8 @@ public class UserPreferenceResource {
         User user = currentUserOr404(ctx);
         try {
             UserSustainabilityPref saved = prefService.setPreference(user, filterKey, req.importance);
-            return Response.ok(PreferenceDTO.from(saved)).build();
+            // Key ist bekannt: p.filter ist nur eine Referenz und wird nicht nachgeladen
+            return Response.ok(PreferenceDTO.of(filterKey, saved.importance)).build();
         } catch (IllegalArgumentException iae) {
             // z.B. unbekannter filterKey
             return Response.status(Response.Status.BAD_REQUEST)
@@ -208,6 +312,7 @@ public class UserPreferenceResource {
     // DELETE /users/preferences/{filterKey}
     @DELETE
     @Path("/{filterKey}")
+    @QueryBudget(statements = 5, entities = 1, transactions = 1)
     public Response deletePreference(
             @Parameter(description = "Filter-Schlüssel", required = true, examples = @ExampleObject(value = "bio"))
             @PathParam("filterKey") String filterKey,
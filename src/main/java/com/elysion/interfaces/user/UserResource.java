@@ -2,6 +2,10 @@ package com.elysion.interfaces.user;
 
 import com.elysion.application.user.UserService;
 import com.elysion.domain.user.User;
+import com.elysion.security.AccountDisabledException;
+import com.elysion.security.AccountNotActivatedException;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import io.vertx.core.http.HttpServerRequest;
 import jakarta.annotation.security.PermitAll;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.inject.Inject;
@@ -44,6 +48,7 @@ import static jakarta.ws.rs.core.Response.Status.NOT_FOUND;
                 bearerFormat = "JWT"
         )
 })
+@RunOnVirtualThread
 public class UserResource {
 
     private static final Logger LOG = Logger.getLogger(UserResource.class);
@@ -126,7 +131,6 @@ public class UserResource {
 
     @POST
     @Path("/register")
-    @Transactional
     @Operation(
             summary = "Registriert einen neuen Nutzer",
             description = """
@@ -161,8 +165,10 @@ public class UserResource {
             @APIResponse(responseCode = "409", description = "E-Mail bereits vergeben",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(type = SchemaType.STRING),
-                            examples = @ExampleObject(value = "\"E-Mail already in use\"")))
+                            examples = @ExampleObject(value = "\"E-Mail already in use\""))),
+            @APIResponse(responseCode = "503", description = "Hashing überlastet, siehe Retry-After")
     })
+    @QueryBudget(statements = 5, entities = 0, transactions = 1)
     public Response register(@Valid RegisterRequest request) {
         LOG.info("Register request: " + request.toString());
         try {
@@ -241,21 +247,27 @@ public class UserResource {
                             }
                     )
             ),
-            @APIResponse(
-
-            )
+            @APIResponse(responseCode = "429", description = "Zu viele Versuche bzw. Account vorübergehend gesperrt, siehe Retry-After"),
+            @APIResponse(responseCode = "503", description = "Hashing überlastet, siehe Retry-After")
     })
-    public Response login(@Valid LoginRequest request) {
+    @QueryBudget(statements = 2, entities = 1, transactions = 1)
+    public Response login(@Valid LoginRequest request, @Context HttpServerRequest httpRequest) {
+        // hinter dem Reverse-Proxy die weitergeleitete Client-Adresse (quarkus.http.proxy.*), nie die des Proxys
+        String clientIp = httpRequest.remoteAddress() != null ? httpRequest.remoteAddress().hostAddress() : null;
         try {
-            User user = userService.authenticate(request.email, request.password);
+            User user = userService.authenticate(request.email, request.password, clientIp);
             String token = userService.generateJwt(user);
             return Response.ok(Map.of("token", token))
                     .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
                     .build();
-        } catch (IllegalStateException e) { // "Account not activated"
+        } catch (AccountNotActivatedException e) {
             return Response.status(Response.Status.FORBIDDEN)
                     .entity(Map.of("error", e.getMessage(), "code", "ACCOUNT_NOT_ACTIVATED"))
                     .build();
+        } catch (AccountDisabledException e) {
+            return Response.status(Response.Status.FORBIDDEN)
+                    .entity(Map.of("error", e.getMessage(), "code", "ACCOUNT_DISABLED"))
+                    .build();
         } catch (IllegalArgumentException e) {
             return Response.status(Response.Status.UNAUTHORIZED)
                     .entity(Map.of("error", e.getMessage(), "code", "INVALID_CREDENTIALS"))
@@ -285,6 +297,7 @@ public class UserResource {
                     content = @Content(mediaType = "application/json",
                             examples = @ExampleObject(value = "{\"error\":\"Token expired\"}")))
     })
+    @QueryBudget(statements = 1, entities = 0, transactions = 1)
     public Response confirmEmail(@QueryParam("token") String token) {
         LOG.info("Confirm email request: " + token);
         try {
@@ -310,6 +323,7 @@ public class UserResource {
             @APIResponse(responseCode = "404", description = "User nicht gefunden"),
             @APIResponse(responseCode = "409", description = "Bereits aktiv")
     })
+    @QueryBudget(statements = 4, entities = 1, transactions = 1)
     public Response resendActivation(@QueryParam("email") String email) {
         LOG.info("Resend activation request: " + email);
         try {
@@ -337,6 +351,7 @@ public class UserResource {
             @APIResponse(responseCode = "400", description = "Invalid token"),
             @APIResponse(responseCode = "409", description = "Token already used or expired"),
     })
+    @QueryBudget(statements = 2, entities = 1, transactions = 1)
     public Response loginWithIdent(@QueryParam("token") String token) {
         LOG.info("Login with Ident-Token: " + token);
         if (token == null || token.isBlank()) {
@@ -0,0 +1,25 @@
+package com.elysion.interfaces.user;
+
+import com.elysion.application.user.WarmUp;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.Readiness;
+
+/**
+ * Readiness ({@code /q/health/ready}) erst nach dem {@link WarmUp} – neue Instanzen bekommen
+ * vom Load Balancer keinen Traffic, solange Pools, Query-Pläne und Krypto noch kalt sind.
+ */
+@Readiness
+@ApplicationScoped
+public class WarmUpReadinessCheck implements HealthCheck {
+
+    @Inject
+    WarmUp warmUp;
+
+    @Override
+    public HealthCheckResponse call() {
+        return HealthCheckResponse.named("warm-up").status(warmUp.isDone()).build();
+    }
+}
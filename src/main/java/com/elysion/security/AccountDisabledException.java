@@ -0,0 +1,12 @@
+package com.elysion.security;
+
+/**
+ * Passwort stimmt, der Account wurde aber von einem Admin gesperrt ({@code users.disabled}).
+ * Wie {@link AccountNotActivatedException} kein Fehlversuch; die REST-Schicht antwortet mit 403.
+ */
+public class AccountDisabledException extends IllegalStateException {
+
+    public AccountDisabledException() {
+        super("Account disabled");
+    }
+}
@@ -0,0 +1,12 @@
+package com.elysion.security;
+
+/**
+ * Passwort stimmt, der Account ist aber (noch) nicht aktiviert.
+ * Kein Fehlversuch im Sinne des {@link LoginThrottle}; die REST-Schicht antwortet mit 403.
+ */
+public class AccountNotActivatedException extends IllegalStateException {
+
+    public AccountNotActivatedException() {
+        super("Account not activated");
+    }
+}
@@ -0,0 +1,153 @@
+package com.elysion.security;
+
+import org.bouncycastle.crypto.generators.Argon2BytesGenerator;
+import org.bouncycastle.crypto.params.Argon2Parameters;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Argon2id (RFC 9106) über Bouncy Castle.
+ * Format (PHC): {@code $argon2id$v=19$m=<KiB>,t=<iterations>,p=<lanes>$<salt>$<hash>}, Base64 ohne Padding.
+ * <p>
+ * Gespeicherte Hashes werden vor dem Rechnen geprüft: fehlerhafte oder Parameter über
+ * {@link #MAX_MEMORY_KIB}/{@link #MAX_ITERATIONS}/{@link #MAX_LANES} ergeben eine
+ * {@link IllegalArgumentException} (beim Login: falsches Passwort), statt Speicher und CPU zu binden.
+ */
+public class Argon2idPasswordHashAlgorithm implements PasswordHashAlgorithm {
+
+    public static final String ID = "argon2id";
+    private static final String PREFIX = "$argon2id$";
+    private static final int SALT_LENGTH = 16;
+    private static final int HASH_LENGTH = 32;
+
+    /** Obergrenzen für gespeicherte Hashes (1 GiB, 64 Iterationen, 16 Lanes). */
+    static final int MAX_MEMORY_KIB = 1 << 20;
+    static final int MAX_ITERATIONS = 64;
+    static final int MAX_LANES = 16;
+    private static final int MIN_SALT_LENGTH = 8;
+    private static final int MIN_HASH_LENGTH = 16;
+    private static final int MAX_HASH_LENGTH = 64;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final Base64.Encoder B64_ENC = Base64.getEncoder().withoutPadding();
+    private static final Base64.Decoder B64_DEC = Base64.getDecoder();
+
+    private final int memoryKiB;
+    private final int iterations;
+    private final int lanes;
+
+    public Argon2idPasswordHashAlgorithm(int memoryKiB, int iterations, int lanes) {
+        if (memoryKiB < 8 * lanes) throw new IllegalArgumentException("Argon2 memory too small: " + memoryKiB);
+        if (iterations < 1) throw new IllegalArgumentException("Argon2 iterations must be >= 1");
+        if (lanes < 1) throw new IllegalArgumentException("Argon2 lanes must be >= 1");
+        this.memoryKiB = memoryKiB;
+        this.iterations = iterations;
+        this.lanes = lanes;
+    }
+
+    public int memoryKiB() {
+        return memoryKiB;
+    }
+
+    public int iterations() {
+        return iterations;
+    }
+
+    public int lanes() {
+        return lanes;
+    }
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public boolean supports(String storedHash) {
+        return storedHash != null && storedHash.startsWith(PREFIX);
+    }
+
+    @Override
+    public String hash(String secret) {
+        byte[] salt = new byte[SALT_LENGTH];
+        RANDOM.nextBytes(salt);
+        byte[] out = derive(secret, salt, memoryKiB, iterations, lanes, HASH_LENGTH);
+        return PREFIX + "v=19$m=" + memoryKiB + ",t=" + iterations + ",p=" + lanes
+                + "$" + B64_ENC.encodeToString(salt) + "$" + B64_ENC.encodeToString(out);
+    }
+
+    @Override
+    public boolean verify(String secret, String storedHash) {
+        Parsed p = parse(storedHash);
+        byte[] out = derive(secret, p.salt, p.memoryKiB, p.iterations, p.lanes, p.hash.length);
+        return MessageDigest.isEqual(out, p.hash);
+    }
+
+    @Override
+    public boolean isWeakerThanCurrent(String storedHash) {
+        Parsed p = parse(storedHash);
+        return p.memoryKiB < memoryKiB || p.iterations < iterations || p.lanes < lanes;
+    }
+
+    private static byte[] derive(String secret, byte[] salt, int memoryKiB, int iterations, int lanes, int length) {
+        Argon2Parameters params = new Argon2Parameters.Builder(Argon2Parameters.ARGON2_id)
+                .withVersion(Argon2Parameters.ARGON2_VERSION_13)
+                .withMemoryAsKB(memoryKiB)
+                .withIterations(iterations)
+                .withParallelism(lanes)
+                .withSalt(salt)
+                .build();
+        Argon2BytesGenerator generator = new Argon2BytesGenerator();
+        generator.init(params);
+        byte[] out = new byte[length];
+        generator.generateBytes(secret.getBytes(StandardCharsets.UTF_8), out);
+        return out;
+    }
+
+    record Parsed(int memoryKiB, int iterations, int lanes, byte[] salt, byte[] hash) {}
+
+    /**
+     * Zerlegt und prüft einen gespeicherten Hash.
+     *
+     * @throws IllegalArgumentException bei falschem Format oder Parametern außerhalb der Grenzen
+     */
+    static Parsed parse(String storedHash) {
+        // ["", "argon2id", "v=19", "m=..,t=..,p=..", salt, hash]
+        String[] parts = storedHash == null ? new String[0] : storedHash.split("\\$", -1);
+        if (parts.length != 6 || !ID.equals(parts[1]) || !"v=19".equals(parts[2])) {
+            throw new IllegalArgumentException("Invalid argon2id hash");
+        }
+        int m = 0, t = 0, p = 0;
+        for (String kv : parts[3].split(",")) {
+            String[] pair = kv.split("=", 2);
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Invalid argon2id parameter: " + kv);
+            }
+            int value = Integer.parseInt(pair[1]); // NumberFormatException ist eine IllegalArgumentException
+            switch (pair[0]) {
+                case "m" -> m = value;
+                case "t" -> t = value;
+                case "p" -> p = value;
+                default -> throw new IllegalArgumentException("Invalid argon2id parameter: " + pair[0]);
+            }
+        }
+        if (p < 1 || p > MAX_LANES) throw new IllegalArgumentException("argon2id lanes out of range: " + p);
+        if (t < 1 || t > MAX_ITERATIONS) throw new IllegalArgumentException("argon2id iterations out of range: " + t);
+        if (m < 8 * p || m > MAX_MEMORY_KIB) throw new IllegalArgumentException("argon2id memory out of range: " + m);
+        byte[] salt = B64_DEC.decode(parts[4]);
+        byte[] hash = B64_DEC.decode(parts[5]);
+        if (salt.length < MIN_SALT_LENGTH) throw new IllegalArgumentException("argon2id salt too short");
+        if (hash.length < MIN_HASH_LENGTH || hash.length > MAX_HASH_LENGTH) {
+            throw new IllegalArgumentException("argon2id hash length out of range: " + hash.length);
+        }
+        return new Parsed(m, t, p, salt, hash);
+    }
+
+    @Override
+    public String toString() {
+        return "argon2id(m=" + memoryKiB + "KiB, t=" + iterations + ", p=" + lanes + ")";
+    }
+}
@@ -0,0 +1,95 @@
+package com.elysion.security;
+
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt mit konfigurierbarem Cost-Faktor. Format: {@code $2a$<cost>$<salt+hash>}.
+ * <p>
+ * Geprüft werden auch {@code $2b$} (OpenBSD, Python, Node) und {@code $2y$} (PHP), etwa aus Importen:
+ * für Passwörter unter 255 Byte rechnen alle drei identisch, jBCrypt kennt aber nur {@code $2a$}.
+ */
+public class BCryptPasswordHashAlgorithm implements PasswordHashAlgorithm {
+
+    public static final String ID = "bcrypt";
+
+    /** Revision, zweistelliger Cost, 22 Zeichen Salt + 31 Zeichen Hash im BCrypt-Base64-Alphabet. */
+    private static final Pattern FORMAT = Pattern.compile("\\$2[aby]?\\$(\\d{2})\\$[./A-Za-z0-9]{53}");
+
+    private final int cost;
+
+    public BCryptPasswordHashAlgorithm(int cost) {
+        if (cost < 4 || cost > 31) {
+            throw new IllegalArgumentException("BCrypt cost must be between 4 and 31: " + cost);
+        }
+        this.cost = cost;
+    }
+
+    public int cost() {
+        return cost;
+    }
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public boolean supports(String storedHash) {
+        return storedHash != null && (storedHash.startsWith("$2a$") || storedHash.startsWith("$2b$")
+                || storedHash.startsWith("$2y$") || storedHash.startsWith("$2$"));
+    }
+
+    @Override
+    public String hash(String secret) {
+        return BCrypt.hashpw(secret, BCrypt.gensalt(cost));
+    }
+
+    @Override
+    public boolean verify(String secret, String storedHash) {
+        return BCrypt.checkpw(secret, asRevisionA(storedHash));
+    }
+
+    @Override
+    public boolean isWeakerThanCurrent(String storedHash) {
+        return costOf(storedHash) < cost;
+    }
+
+    /** "$2b$..."/"$2y$..." -> "$2a$...", damit jBCrypt den Hash akzeptiert. */
+    static String asRevisionA(String storedHash) {
+        if (storedHash.startsWith("$2b$") || storedHash.startsWith("$2y$")) {
+            return "$2a$" + storedHash.substring(4);
+        }
+        return storedHash;
+    }
+
+    /**
+     * Prüft Format und Länge eines gespeicherten Hashes und liefert dessen Cost-Faktor.
+     *
+     * @throws IllegalArgumentException bei falschem Format oder Cost außerhalb 4..31
+     */
+    static int parseCost(String storedHash) {
+        Matcher m = storedHash == null ? null : FORMAT.matcher(storedHash);
+        if (m == null || !m.matches()) {
+            throw new IllegalArgumentException("Invalid bcrypt hash");
+        }
+        int cost = Integer.parseInt(m.group(1));
+        if (cost < 4 || cost > 31) {
+            throw new IllegalArgumentException("bcrypt cost out of range: " + cost);
+        }
+        return cost;
+    }
+
+    /** Liest den Cost-Faktor aus "$2a$12$..." */
+    static int costOf(String storedHash) {
+        int start = storedHash.charAt(2) == '$' ? 3 : 4;
+        return Integer.parseInt(storedHash.substring(start, start + 2));
+    }
+
+    @Override
+    public String toString() {
+        return "bcrypt(cost=" + cost + ")";
+    }
+}
@@ -0,0 +1,233 @@
+package com.elysion.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Drosselt Login-Versuche, bevor eine DB-Abfrage oder ein Hash-Vergleich stattfindet.
+ * <ul>
+ *   <li>Token-Bucket je normalisierter E-Mail und je Client-IP (lock-free per CAS)</li>
+ *   <li>exponentielle Sperre je Account nach wiederholten Fehlversuchen</li>
+ *   <li>begrenzter Speicher: inaktive Einträge laufen ab, bei voller Tabelle verdrängt Caffeine selten
+ *       genutzte Schlüssel (W-TinyLFU, amortisiert O(1)). Neue Schlüssel werden immer verfolgt; gesperrte
+ *       Accounts haben Gewicht 0 und werden nie verdrängt, auch nicht durch viele einmalige Schlüssel</li>
+ * </ul>
+ */
+@ApplicationScoped
+public class LoginThrottle {
+
+    @ConfigProperty(name = "security.login.throttle.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "security.login.throttle.account.capacity", defaultValue = "5")
+    int accountCapacity;
+
+    @ConfigProperty(name = "security.login.throttle.account.refill-period", defaultValue = "1m")
+    Duration accountRefillPeriod;
+
+    @ConfigProperty(name = "security.login.throttle.ip.capacity", defaultValue = "20")
+    int ipCapacity;
+
+    @ConfigProperty(name = "security.login.throttle.ip.refill-period", defaultValue = "1m")
+    Duration ipRefillPeriod;
+
+    /** Ab so vielen Fehlversuchen in Folge wird der Account gesperrt. */
+    @ConfigProperty(name = "security.login.throttle.lockout.threshold", defaultValue = "5")
+    int lockoutThreshold;
+
+    @ConfigProperty(name = "security.login.throttle.lockout.base", defaultValue = "30s")
+    Duration lockoutBase;
+
+    @ConfigProperty(name = "security.login.throttle.lockout.max", defaultValue = "15m")
+    Duration lockoutMax;
+
+    @ConfigProperty(name = "security.login.throttle.max-entries", defaultValue = "100000")
+    int maxEntries;
+
+    @ConfigProperty(name = "security.login.throttle.idle-timeout", defaultValue = "30m")
+    Duration idleTimeout;
+
+    @Inject
+    MeterRegistry registry;
+
+    /** Immutable Zustand eines Schlüssels; Zeiten in ns relativ zu {@link #origin}. */
+    private record Bucket(double tokens, long refilledAt, int failures, long lockedUntil) {}
+
+    /** Bucket-Parameter: volle Kapazität wird in {@code refillPeriod} nachgefüllt. */
+    private record Policy(int capacity, double tokensPerNano) {
+        static Policy of(int capacity, Duration refillPeriod) {
+            return new Policy(capacity, (double) capacity / refillPeriod.toNanos());
+        }
+    }
+
+    private final long origin = System.nanoTime();
+    private Cache<String, AtomicReference<Bucket>> accounts;
+    private Cache<String, AtomicReference<Bucket>> ips;
+
+    private Policy accountPolicy;
+    private Policy ipPolicy;
+    private Counter rejectedAccount;
+    private Counter rejectedIp;
+    private Counter rejectedLockout;
+    private Counter evicted;
+
+    @PostConstruct
+    void init() {
+        accountPolicy = Policy.of(accountCapacity, accountRefillPeriod);
+        ipPolicy = Policy.of(ipCapacity, ipRefillPeriod);
+
+        evicted = Counter.builder("login.throttle.evicted")
+                .description("Entfernte Schlüssel (inaktiv oder wegen voller Tabelle verdrängt)")
+                .register(registry);
+        accounts = table();
+        ips = table();
+
+        Gauge.builder("login.throttle.keys", accounts, Cache::estimatedSize).tag("scope", "account").register(registry);
+        Gauge.builder("login.throttle.keys", ips, Cache::estimatedSize).tag("scope", "ip").register(registry);
+        rejectedAccount = rejections("account_rate");
+        rejectedIp = rejections("ip_rate");
+        rejectedLockout = rejections("lockout");
+    }
+
+    /**
+     * Einträge laufen nach {@code idle-timeout} ohne Zugriff ab, frühestens nach {@code lockout.max}: der letzte
+     * Fehlversuch ist ein Zugriff, eine laufende Sperre verfällt so nicht mit ihrem Eintrag.
+     */
+    private Cache<String, AtomicReference<Bucket>> table() {
+        return Caffeine.newBuilder()
+                .maximumWeight(maxEntries)
+                .<String, AtomicReference<Bucket>>weigher((key, ref) -> ref.get().lockedUntil() > now() ? 0 : 1)
+                .expireAfterAccess(idleTimeout.compareTo(lockoutMax) >= 0 ? idleTimeout : lockoutMax)
+                .evictionListener((key, value, cause) -> evicted.increment())
+                .build();
+    }
+
+    private Counter rejections(String reason) {
+        return Counter.builder("login.throttle.rejected")
+                .description("Abgewiesene Login-Versuche")
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    /**
+     * Verbraucht je ein Token für IP und Account.
+     *
+     * @throws LoginThrottledException wenn einer der Buckets leer oder der Account gesperrt ist
+     */
+    public void acquire(String email, String clientIp) {
+        if (!enabled) return;
+        long now = now();
+
+        if (clientIp != null) {
+            long wait = tryTake(ips, clientIp, ipPolicy, now);
+            if (wait > 0) {
+                rejectedIp.increment();
+                throw new LoginThrottledException("Too many login attempts", Duration.ofNanos(wait));
+            }
+        }
+
+        String account = normalize(email);
+        if (account != null) {
+            AtomicReference<Bucket> ref = entry(accounts, account, accountPolicy, now);
+            long locked = ref.get().lockedUntil() - now;
+            if (locked > 0) {
+                rejectedLockout.increment();
+                throw new LoginThrottledException("Account temporarily locked", Duration.ofNanos(locked));
+            }
+            long wait = take(ref, accountPolicy, now);
+            if (wait > 0) {
+                rejectedAccount.increment();
+                throw new LoginThrottledException("Too many login attempts", Duration.ofNanos(wait));
+            }
+        }
+    }
+
+    /** Fehlversuch: ab {@code lockout.threshold} wird der Account exponentiell länger gesperrt. */
+    public void recordFailure(String email) {
+        if (!enabled) return;
+        String account = normalize(email);
+        if (account == null) return;
+        AtomicReference<Bucket> ref = accounts.getIfPresent(account);
+        if (ref == null) return;
+        long now = now();
+        Bucket next = ref.updateAndGet(b -> {
+            int failures = b.failures() + 1;
+            long lockedUntil = b.lockedUntil();
+            if (failures >= lockoutThreshold) {
+                int exp = Math.min(failures - lockoutThreshold, 20);
+                long lock = Math.min(lockoutMax.toNanos(), lockoutBase.toNanos() << exp);
+                lockedUntil = now + lock;
+            }
+            return new Bucket(b.tokens(), b.refilledAt(), failures, lockedUntil);
+        });
+        if (next.lockedUntil() > now) {
+            // neu gewichten: gesperrt -> Gewicht 0, nicht verdrängbar
+            accounts.put(account, ref);
+        }
+    }
+
+    /** Erfolgreicher Login setzt Fehlversuche und Sperre zurück. */
+    public void recordSuccess(String email) {
+        if (!enabled) return;
+        String account = normalize(email);
+        if (account == null) return;
+        AtomicReference<Bucket> ref = accounts.getIfPresent(account);
+        if (ref == null) return;
+        ref.updateAndGet(b -> new Bucket(b.tokens(), b.refilledAt(), 0, 0L));
+    }
+
+    @Scheduled(every = "${security.login.throttle.sweep-interval:1m}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void sweep() {
+        // Caffeine räumt sonst nur bei Zugriffen auf; hält login.throttle.keys auch ohne Last aktuell
+        accounts.cleanUp();
+        ips.cleanUp();
+    }
+
+    // ======== intern ========
+
+    private static long tryTake(Cache<String, AtomicReference<Bucket>> table, String key, Policy policy, long now) {
+        return take(entry(table, key, policy, now), policy, now);
+    }
+
+    /** @return 0 wenn ein Token entnommen wurde, sonst die Wartezeit in ns bis zum nächsten Token */
+    private static long take(AtomicReference<Bucket> ref, Policy policy, long now) {
+        while (true) {
+            Bucket b = ref.get();
+            double tokens = Math.min(policy.capacity(), b.tokens() + (now - b.refilledAt()) * policy.tokensPerNano());
+            if (tokens < 1) {
+                return (long) Math.ceil((1 - tokens) / policy.tokensPerNano());
+            }
+            Bucket next = new Bucket(tokens - 1, now, b.failures(), b.lockedUntil());
+            if (ref.compareAndSet(b, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private static AtomicReference<Bucket> entry(Cache<String, AtomicReference<Bucket>> table,
+                                                 String key, Policy policy, long now) {
+        return table.get(key, k -> new AtomicReference<>(new Bucket(policy.capacity(), now, 0, 0L)));
+    }
+
+    private long now() {
+        return System.nanoTime() - origin;
+    }
+
+    private static String normalize(String email) {
+        if (email == null) return null;
+        String n = email.trim().toLowerCase(Locale.ROOT);
+        return n.isEmpty() ? null : n;
+    }
+}
@@ -0,0 +1,21 @@
+package com.elysion.security;
+
+import java.time.Duration;
+
+/**
+ * Login-Versuch wurde vom {@link LoginThrottle} abgewiesen (Rate-Limit oder Sperre nach Fehlversuchen).
+ * Die REST-Schicht übersetzt das in 429 + Retry-After.
+ */
+public class LoginThrottledException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public LoginThrottledException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
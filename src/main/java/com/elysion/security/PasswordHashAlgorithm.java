@@ -0,0 +1,26 @@
+package com.elysion.security;
+
+/**
+ * Ein Passwort-Hash-Verfahren samt Parametern.
+ * <p>
+ * Der erzeugte Hash ist selbstbeschreibend (Modular-Crypt- bzw. PHC-Format), d.h. Algorithmus und
+ * Parameter stehen mit in {@code users.password_hash}. Dadurch können alte Hashes weiter geprüft und
+ * beim nächsten Login transparent auf die aktuellen Parameter umgestellt werden.
+ */
+public interface PasswordHashAlgorithm {
+
+    /** Kurzname, z.B. "bcrypt" oder "argon2id". */
+    String id();
+
+    /** Erkennt, ob ein gespeicherter Hash von diesem Verfahren stammt. */
+    boolean supports(String storedHash);
+
+    String hash(String secret);
+
+    boolean verify(String secret, String storedHash);
+
+    /**
+     * true, wenn der gespeicherte Hash (gleiches Verfahren) schwächere Parameter nutzt als dieses Objekt.
+     */
+    boolean isWeakerThanCurrent(String storedHash);
+}
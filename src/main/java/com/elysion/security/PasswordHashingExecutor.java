@@ -0,0 +1,141 @@
+package com.elysion.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Eigener, CPU-gebundener Pool für BCrypt & Co.
+ * <p>
+ * Hashing läuft nicht mehr auf den Quarkus-Workern, sondern auf einer festen Anzahl Threads
+ * (Default: Anzahl Kerne) mit begrenzter Queue. Ist die Queue voll oder liegt das Ergebnis nicht innerhalb von
+ * {@code security.password.hashing.max-wait} vor, wird mit {@link PasswordHashingRejectedException}
+ * abgelehnt, statt den Server mit weiteren Logins zu fluten. Aufgegebene Jobs, die noch in der Queue liegen,
+ * werden beim Start übersprungen.
+ */
+@ApplicationScoped
+public class PasswordHashingExecutor {
+
+    private static final Logger LOG = Logger.getLogger(PasswordHashingExecutor.class);
+
+    @ConfigProperty(name = "security.password.hashing.threads")
+    Optional<Integer> threads;
+
+    @ConfigProperty(name = "security.password.hashing.queue-size", defaultValue = "64")
+    int queueSize;
+
+    @ConfigProperty(name = "security.password.hashing.max-wait", defaultValue = "2s")
+    Duration maxWait;
+
+    @ConfigProperty(name = "security.password.hashing.retry-after", defaultValue = "1s")
+    Duration retryAfter;
+
+    @Inject
+    MeterRegistry registry;
+
+    private ThreadPoolExecutor pool;
+    private Timer waitTimer;
+    private Counter rejected;
+
+    @PostConstruct
+    void init() {
+        int size = threads.filter(n -> n > 0).orElse(Runtime.getRuntime().availableProcessors());
+        AtomicInteger seq = new AtomicInteger();
+        pool = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                r -> {
+                    Thread t = new Thread(r, "password-hasher-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        pool.prestartAllCoreThreads();
+
+        Gauge.builder("password.hashing.queue.depth", pool, p -> p.getQueue().size())
+                .description("Wartende Hash-Jobs")
+                .register(registry);
+        Gauge.builder("password.hashing.active", pool, ThreadPoolExecutor::getActiveCount)
+                .description("Aktuell laufende Hash-Jobs")
+                .register(registry);
+        Gauge.builder("password.hashing.pool.size", pool, ThreadPoolExecutor::getMaximumPoolSize)
+                .register(registry);
+        waitTimer = Timer.builder("password.hashing.wait")
+                .description("Zeit in der Queue bis zum Start des Hash-Jobs")
+                .register(registry);
+        rejected = Counter.builder("password.hashing.rejected")
+                .description("Abgelehnte Hash-Jobs (Queue voll oder max-wait überschritten)")
+                .register(registry);
+
+        LOG.infof("Password hashing pool started: threads=%d, queue=%d, maxWait=%s", size, queueSize, maxWait);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Führt einen Hash-Job auf dem Hashing-Pool aus und blockiert den Aufrufer bis zum Ergebnis, höchstens
+     * {@code max-wait} lang. Läuft der Aufrufer auf einem virtuellen Thread, wird dabei kein Carrier-Thread belegt.
+     *
+     * @param operation Name für das Metrik-Tag (z.B. "hash", "verify")
+     */
+    public <T> T submit(String operation, Supplier<T> job) {
+        long enqueued = System.nanoTime();
+        Timer hashTimer = Timer.builder("password.hashing.duration")
+                .description("Reine CPU-Zeit eines Hash-Jobs")
+                .tag("operation", operation)
+                .register(registry);
+
+        Future<T> future;
+        try {
+            future = pool.submit(() -> {
+                long waited = System.nanoTime() - enqueued;
+                waitTimer.record(waited, TimeUnit.NANOSECONDS);
+                if (waited > maxWait.toNanos()) {
+                    throw reject("Password hashing wait time exceeded");
+                }
+                return hashTimer.record(job);
+            });
+        } catch (RejectedExecutionException e) {
+            throw reject("Password hashing queue full");
+        }
+
+        try {
+            return future.get(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // noch in der Queue: wird beim Start übersprungen (Prüfung oben); läuft er schon, rechnet er zu Ende
+            future.cancel(false);
+            throw reject("Password hashing wait time exceeded");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            if (cause instanceof Error err) throw err;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private PasswordHashingRejectedException reject(String message) {
+        rejected.increment();
+        return new PasswordHashingRejectedException(message, retryAfter);
+    }
+}
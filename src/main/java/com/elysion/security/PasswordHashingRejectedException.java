@@ -0,0 +1,21 @@
+package com.elysion.security;
+
+import java.time.Duration;
+
+/**
+ * Wird geworfen, wenn die Hashing-Engine überlastet ist (Queue voll oder maximale Wartezeit überschritten).
+ * Die REST-Schicht übersetzt das in 503 + Retry-After.
+ */
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public PasswordHashingRejectedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -1,19 +1,78 @@
 package com.elysion.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.runtime.StartupEvent;
 import jakarta.enterprise.context.ApplicationScoped;
-import org.mindrot.jbcrypt.BCrypt;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
 
 import java.security.SecureRandom;
+import java.time.Duration;
 import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @ApplicationScoped
 public class PasswordService {
 
+    private static final Logger LOG = Logger.getLogger(PasswordService.class);
+
     private static final int SALT_LENGTH = 16; // Bytes
-    private static final int BCRYPT_ROUNDS = 12;
+    private static final int DEFAULT_BCRYPT_ROUNDS = 12;
+    private static final int MIN_BCRYPT_ROUNDS = 10;
+    private static final int MAX_BCRYPT_ROUNDS = 16;
+    private static final int MIN_ARGON2_ITERATIONS = 2;
+    private static final int MAX_ARGON2_ITERATIONS = 10;
+
+    /** Importierte Hashes dürfen so viele BCrypt-Stufen über den aktuellen Parametern liegen ... */
+    private static final int IMPORT_BCRYPT_HEADROOM = 2;
+    /** ... bzw. Argon2-Speicher und -Iterationen höchstens um diesen Faktor (Lanes: mindestens 4). */
+    private static final int IMPORT_ARGON2_FACTOR = 2;
+    private static final int IMPORT_ARGON2_MIN_LANES = 4;
+
+    /** Zum Prüfen älterer Hashes; die Parameter stehen im Hash selbst, daher reichen Default-Instanzen. */
+    private static final BCryptPasswordHashAlgorithm BCRYPT_VERIFIER = new BCryptPasswordHashAlgorithm(DEFAULT_BCRYPT_ROUNDS);
+    private static final Argon2idPasswordHashAlgorithm ARGON2_VERIFIER =
+            new Argon2idPasswordHashAlgorithm(65536, MIN_ARGON2_ITERATIONS, 1);
+    private static final List<PasswordHashAlgorithm> VERIFIERS = List.of(BCRYPT_VERIFIER, ARGON2_VERIFIER);
 
     private final String pepper;
 
+    /** Hashing-Pool; null, wenn außerhalb von CDI instanziiert (z.B. im HashTool) -> dann inline. */
+    @Inject
+    PasswordHashingExecutor executor;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "security.password.algorithm", defaultValue = BCryptPasswordHashAlgorithm.ID)
+    String algorithm;
+
+    /** Fester Cost-Faktor; ohne Angabe wird beim Start kalibriert. */
+    @ConfigProperty(name = "security.password.bcrypt.cost")
+    Optional<Integer> bcryptCost;
+
+    @ConfigProperty(name = "security.password.argon2.memory-kib", defaultValue = "65536")
+    int argon2MemoryKiB;
+
+    @ConfigProperty(name = "security.password.argon2.lanes", defaultValue = "1")
+    int argon2Lanes;
+
+    /** Feste Iterationszahl; ohne Angabe wird beim Start kalibriert. */
+    @ConfigProperty(name = "security.password.argon2.iterations")
+    Optional<Integer> argon2Iterations;
+
+    @ConfigProperty(name = "security.password.calibration.target", defaultValue = "250ms")
+    Duration calibrationTarget;
+
+    /** Verfahren für neue Hashes. Bis zur Kalibrierung (und im HashTool) BCrypt mit Cost 12. */
+    private volatile PasswordHashAlgorithm current = new BCryptPasswordHashAlgorithm(DEFAULT_BCRYPT_ROUNDS);
+
     public PasswordService() {
         this.pepper = System.getenv("PEPPER");
         if (this.pepper == null || this.pepper.isEmpty()) {
@@ -21,19 +80,174 @@ public class PasswordService {
         }
     }
 
+    void onStart(@Observes StartupEvent ev) {
+        current = calibrate();
+        LOG.infof("Password hashing calibrated: %s (target %d ms)", current, calibrationTarget.toMillis());
+    }
+
+    public PasswordHashAlgorithm currentAlgorithm() {
+        return current;
+    }
+
     public String generateSalt() {
         byte[] saltBytes = new byte[SALT_LENGTH];
         new SecureRandom().nextBytes(saltBytes);
         return Base64.getEncoder().encodeToString(saltBytes);
     }
 
+    /**
+     * Hasht das Passwort mit dem aktuellen Verfahren auf dem Hashing-Pool.
+     *
+     * @throws PasswordHashingRejectedException wenn der Pool überlastet ist
+     */
     public String hashPassword(String password, String salt) {
+        PasswordHashAlgorithm algo = current;
         String combined = password + salt + pepper;
-        return BCrypt.hashpw(combined, BCrypt.gensalt(BCRYPT_ROUNDS));
+        if (executor == null) {
+            return algo.hash(combined);
+        }
+        return executor.submit("hash", () -> algo.hash(combined));
+    }
+
+    /**
+     * Wie {@link #hashPassword(String, String)}, aber auf einem eigenen Executor statt auf dem Hashing-Pool –
+     * für Massenimporte, deren Jobs sonst die Queue der Logins füllen und abgelehnt würden.
+     */
+    public CompletableFuture<String> hashPasswordAsync(String password, String salt, Executor hashingExecutor) {
+        PasswordHashAlgorithm algo = current;
+        String combined = password + salt + pepper;
+        return CompletableFuture.supplyAsync(() -> algo.hash(combined), hashingExecutor);
+    }
+
+    /**
+     * Prüft einen von außen übernommenen Hash (Import), bevor er gespeichert wird: Format, Länge und Parameter.
+     * Die Grenzen liegen nahe an den aktuellen Parametern, damit ein präparierter Hash beim ersten Login weder
+     * Gigabytes Speicher noch einen Hashing-Thread für Minuten belegt.
+     *
+     * @return Fehlermeldung für den Import-Report oder null, wenn der Hash übernommen werden kann
+     */
+    public String checkImportedHash(String storedHash) {
+        try {
+            if (BCRYPT_VERIFIER.supports(storedHash)) {
+                int cost = BCryptPasswordHashAlgorithm.parseCost(storedHash);
+                int currentCost = current instanceof BCryptPasswordHashAlgorithm b ? b.cost() : DEFAULT_BCRYPT_ROUNDS;
+                int maxCost = Math.min(31, Math.max(currentCost, DEFAULT_BCRYPT_ROUNDS) + IMPORT_BCRYPT_HEADROOM);
+                return cost > maxCost ? "passwordHash bcrypt cost " + cost + " exceeds the maximum of " + maxCost : null;
+            }
+            if (ARGON2_VERIFIER.supports(storedHash)) {
+                Argon2idPasswordHashAlgorithm.Parsed p = Argon2idPasswordHashAlgorithm.parse(storedHash);
+                Argon2idPasswordHashAlgorithm ref = current instanceof Argon2idPasswordHashAlgorithm a ? a
+                        : new Argon2idPasswordHashAlgorithm(argon2MemoryKiB, MAX_ARGON2_ITERATIONS, argon2Lanes);
+                int maxMemory = ref.memoryKiB() * IMPORT_ARGON2_FACTOR;
+                int maxIterations = ref.iterations() * IMPORT_ARGON2_FACTOR;
+                int maxLanes = Math.max(ref.lanes() * IMPORT_ARGON2_FACTOR, IMPORT_ARGON2_MIN_LANES);
+                if (p.memoryKiB() > maxMemory) return "passwordHash argon2id memory exceeds " + maxMemory + " KiB";
+                if (p.iterations() > maxIterations) return "passwordHash argon2id iterations exceed " + maxIterations;
+                if (p.lanes() > maxLanes) return "passwordHash argon2id lanes exceed " + maxLanes;
+                return null;
+            }
+        } catch (IllegalArgumentException e) {
+            return "passwordHash is invalid: " + e.getMessage();
+        }
+        return "passwordHash format is not supported";
     }
 
+    /**
+     * Prüft das Passwort gegen einen gespeicherten Hash beliebigen unterstützten Formats.
+     *
+     * @throws PasswordHashingRejectedException wenn der Pool überlastet ist
+     */
     public boolean verifyPassword(String rawPassword, String salt, String storedHash) {
+        PasswordHashAlgorithm algo = algorithmFor(storedHash);
         String combined = rawPassword + salt + pepper;
-        return BCrypt.checkpw(combined, storedHash);
+        if (executor == null) {
+            return algo.verify(combined, storedHash);
+        }
+        Timer timer = Timer.builder("password.verify")
+                .description("Passwortprüfung inkl. Wartezeit im Hashing-Pool")
+                .tag("algorithm", algo.id())
+                .register(registry);
+        return timer.record(() -> executor.submit("verify", () -> algo.verify(combined, storedHash)));
+    }
+
+    /**
+     * true, wenn der gespeicherte Hash nicht mit dem aktuellen Verfahren oder mit schwächeren
+     * Parametern erzeugt wurde und beim nächsten erfolgreichen Login neu gehasht werden sollte.
+     */
+    public boolean needsRehash(String storedHash) {
+        PasswordHashAlgorithm algo = current;
+        if (!algo.supports(storedHash)) {
+            return true;
+        }
+        return algo.isWeakerThanCurrent(storedHash);
+    }
+
+    private PasswordHashAlgorithm algorithmFor(String storedHash) {
+        PasswordHashAlgorithm algo = current;
+        if (algo.supports(storedHash)) {
+            return algo;
+        }
+        for (PasswordHashAlgorithm candidate : VERIFIERS) {
+            if (candidate.supports(storedHash)) {
+                return candidate;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported password hash format");
+    }
+
+    // ======== Kalibrierung ========
+
+    private PasswordHashAlgorithm calibrate() {
+        if (Argon2idPasswordHashAlgorithm.ID.equals(algorithm)) {
+            if (argon2Iterations.isPresent()) {
+                return new Argon2idPasswordHashAlgorithm(argon2MemoryKiB, argon2Iterations.get(), argon2Lanes);
+            }
+            // Speicher und Lanes sind fest, die Iterationen werden bis zum Zielwert hochgezogen
+            Argon2idPasswordHashAlgorithm chosen = new Argon2idPasswordHashAlgorithm(argon2MemoryKiB, MIN_ARGON2_ITERATIONS, argon2Lanes);
+            for (int t = MIN_ARGON2_ITERATIONS + 1; t <= MAX_ARGON2_ITERATIONS; t++) {
+                Argon2idPasswordHashAlgorithm candidate = new Argon2idPasswordHashAlgorithm(argon2MemoryKiB, t, argon2Lanes);
+                if (measure(candidate) > calibrationTarget.toNanos()) {
+                    break;
+                }
+                chosen = candidate;
+            }
+            return chosen;
+        }
+        if (!BCryptPasswordHashAlgorithm.ID.equals(algorithm)) {
+            throw new IllegalStateException("Unknown password hash algorithm: " + algorithm);
+        }
+        if (bcryptCost.isPresent()) {
+            if (bcryptCost.get() < DEFAULT_BCRYPT_ROUNDS) {
+                LOG.warnf("security.password.bcrypt.cost=%d is below the recommended minimum of %d",
+                        bcryptCost.get(), DEFAULT_BCRYPT_ROUNDS);
+            }
+            return new BCryptPasswordHashAlgorithm(bcryptCost.get());
+        }
+        // BCrypt verdoppelt die Laufzeit pro Cost-Stufe: einmal messen, dann hochrechnen
+        long nanos = measure(new BCryptPasswordHashAlgorithm(MIN_BCRYPT_ROUNDS));
+        int cost = MIN_BCRYPT_ROUNDS;
+        while (cost < MAX_BCRYPT_ROUNDS && nanos * 2 <= calibrationTarget.toNanos()) {
+            cost++;
+            nanos *= 2;
+        }
+        // Kalibrierung darf nur anheben: auf langsamer (oder gerade belasteter) Hardware nie unter 12
+        if (cost < DEFAULT_BCRYPT_ROUNDS) {
+            LOG.warnf("Calibrated BCrypt cost %d (target %d ms) is below the minimum, using %d",
+                    cost, calibrationTarget.toMillis(), DEFAULT_BCRYPT_ROUNDS);
+            cost = DEFAULT_BCRYPT_ROUNDS;
+        }
+        return new BCryptPasswordHashAlgorithm(cost);
+    }
+
+    /** Beste von drei Messungen (nach einem Warm-up-Lauf). */
+    private static long measure(PasswordHashAlgorithm algo) {
+        algo.hash("calibration");
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            algo.hash("calibration");
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
     }
-}
\ No newline at end of file
+}
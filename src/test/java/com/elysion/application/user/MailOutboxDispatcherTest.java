@@ -0,0 +1,136 @@
+package com.elysion.application.user;
+
+import com.elysion.domain.user.MailOutbox;
+import com.elysion.support.PostgresResource;
+import com.elysion.support.TestAccounts;
+import io.quarkus.mailer.Mail;
+import io.quarkus.mailer.MockMailbox;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.common.WithTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Outbox-Lebenszyklus gegen die MockMailbox: Registrierung schreibt die Mail, ein Dispatch-Lauf verschickt und
+ * löscht sie. Fehlschläge werden mit einer ungültigen Empfängeradresse provoziert (die MockMailbox validiert
+ * Adressen wie der echte Mailer).
+ */
+@QuarkusTest
+@WithTestResource(PostgresResource.class)
+class MailOutboxDispatcherTest {
+
+    private static final String INVALID_RECIPIENT = "not an address";
+
+    @Inject
+    MailOutboxDispatcher dispatcher;
+
+    @Inject
+    UserTokenRetention retention;
+
+    @Inject
+    MockMailbox mailbox;
+
+    @Inject
+    TestAccounts accounts;
+
+    @BeforeEach
+    void clean() {
+        accounts.execute("DELETE FROM mail_outbox");
+        mailbox.clear();
+    }
+
+    @Test
+    void sentMailIsDeleted() {
+        String email = accounts.register("outbox");
+
+        assertEquals(1, dispatcher.dispatchBatch());
+
+        List<Mail> mails = mailbox.getMailsSentTo(email);
+        assertEquals(1, mails.size());
+        assertTrue(mails.get(0).getText().contains("token="), mails.get(0).getText());
+        assertEquals(0L, QuarkusTransaction.requiringNew().call(() -> MailOutbox.count("recipient", email)));
+    }
+
+    @Test
+    void failedSendIsRescheduledWithBackoff() {
+        UUID id = insert(INVALID_RECIPIENT, 0, OffsetDateTime.now().minusDays(1));
+
+        OffsetDateTime before = OffsetDateTime.now();
+        assertEquals(1, dispatcher.dispatchBatch());
+        MailOutbox first = find(id);
+        assertEquals(MailOutbox.PENDING, first.status);
+        assertEquals(1, first.attempts);
+        assertNotNull(first.lastError);
+        // Versuch 1: 30s ±20 %
+        assertBetween(first.nextAttemptAt, before.plusSeconds(24), OffsetDateTime.now().plusSeconds(36));
+
+        accounts.execute("UPDATE mail_outbox SET attempts = 2, next_attempt_at = now() WHERE id = '" + id + "'");
+        before = OffsetDateTime.now();
+        dispatcher.dispatchBatch();
+        // Versuch 3: 30s · 2² = 120s ±20 %
+        assertBetween(find(id).nextAttemptAt, before.plusSeconds(96), OffsetDateTime.now().plusSeconds(144));
+        assertEquals(0, mailbox.getTotalMessagesSent());
+    }
+
+    @Test
+    void lastFailedAttemptRedactsBody() {
+        UUID id = insert(INVALID_RECIPIENT, 7, OffsetDateTime.now().minusDays(1));
+
+        dispatcher.dispatchBatch();
+
+        MailOutbox failed = find(id);
+        assertEquals(MailOutbox.FAILED, failed.status);
+        assertEquals(8, failed.attempts);
+        assertEquals(MailOutbox.REDACTED_BODY, failed.body);
+        assertEquals(0, dispatcher.dispatchBatch(), "failed mails must not be claimed again");
+    }
+
+    @Test
+    void retentionPurgesOldFailedMails() {
+        UUID old = insert(INVALID_RECIPIENT, 8, OffsetDateTime.now().minusDays(30));
+        UUID recent = insert(INVALID_RECIPIENT, 8, OffsetDateTime.now().minusDays(1));
+        accounts.execute("UPDATE mail_outbox SET status = 'FAILED'");
+
+        retention.deleteFailedMails();
+
+        assertNull(find(old));
+        assertNotNull(find(recent));
+    }
+
+    private static UUID insert(String recipient, int attempts, OffsetDateTime createdAt) {
+        return QuarkusTransaction.requiringNew().call(() -> {
+            MailOutbox m = new MailOutbox();
+            m.id = UUID.randomUUID();
+            m.kind = "ACTIVATION";
+            m.recipient = recipient;
+            m.subject = "Test";
+            m.body = "https://example.com/confirm?token=" + UUID.randomUUID();
+            m.attempts = attempts;
+            m.nextAttemptAt = OffsetDateTime.now().minusSeconds(1);
+            m.createdAt = createdAt;
+            m.persist();
+            return m.id;
+        });
+    }
+
+    private static MailOutbox find(UUID id) {
+        return QuarkusTransaction.requiringNew().call(() -> MailOutbox.<MailOutbox>findById(id));
+    }
+
+    private static void assertBetween(OffsetDateTime actual, OffsetDateTime from, OffsetDateTime to) {
+        assertTrue(!actual.isBefore(from) && !actual.isAfter(to),
+                actual + " not in [" + from + ", " + to + "] (" + Duration.between(from, to) + ")");
+    }
+}
@@ -0,0 +1,83 @@
+package com.elysion.application.user;
+
+import com.elysion.security.PasswordHashingExecutor;
+import com.elysion.support.PostgresResource;
+import com.elysion.support.TestAccounts;
+import com.elysion.support.TestAccounts.Account;
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.arc.ClientProxy;
+import io.quarkus.test.common.WithTestResource;
+import io.quarkus.test.junit.QuarkusMock;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Während BCrypt rechnet, darf der Request keine DB-Connection halten: jeder Hash-Job liest beim Start die
+ * aktiven Connections des Agroal-Pools mit. Im Test-Profil laufen keine Hintergrund-Jobs, die den Pool nutzen.
+ */
+@QuarkusTest
+@WithTestResource(PostgresResource.class)
+class PasswordHashingConnectionTest {
+
+    @Inject
+    PasswordHashingExecutor executor;
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    @Inject
+    TestAccounts accounts;
+
+    /** Aktive Connections je Hash-Job, in Aufrufreihenfolge. */
+    private final List<Long> activeWhileHashing = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void probe() {
+        PasswordHashingExecutor real = ClientProxy.unwrap(executor);
+        QuarkusMock.installMockForType(new PasswordHashingExecutor() {
+            @Override
+            public <T> T submit(String operation, Supplier<T> job) {
+                return real.submit(operation, () -> {
+                    activeWhileHashing.add(dataSource.getMetrics().activeCount());
+                    return job.get();
+                });
+            }
+        }, PasswordHashingExecutor.class);
+    }
+
+    @Test
+    void registerHashesWithoutConnection() {
+        given().contentType(ContentType.JSON)
+                .body(Map.of("email", TestAccounts.newEmail("hold"), "password", TestAccounts.PASSWORD,
+                        "firstName", "A", "lastName", "B"))
+                .post("/auth/register")
+                .then().statusCode(201);
+
+        assertEquals(List.of(0L), activeWhileHashing);
+    }
+
+    @Test
+    void changePasswordVerifiesAndHashesWithoutConnection() {
+        Account user = accounts.activeUser("hold");
+        activeWhileHashing.clear();
+
+        given().auth().oauth2(user.jwt()).contentType(ContentType.JSON)
+                .body(Map.of("currentPassword", TestAccounts.PASSWORD, "newPassword", TestAccounts.PASSWORD))
+                .put("/users/password")
+                .then().statusCode(200);
+
+        // verify des alten, hash des neuen Passworts
+        assertEquals(List.of(0L, 0L), activeWhileHashing);
+    }
+}
@@ -0,0 +1,68 @@
+package com.elysion.application.user;
+
+import com.elysion.application.user.UserImportService.ImportReport;
+import com.elysion.application.user.UserImportService.Outcome;
+import com.elysion.application.user.UserImportService.RowResult;
+import com.elysion.support.PostgresResource;
+import com.elysion.support.TestAccounts;
+import io.quarkus.test.common.WithTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Vorab gehashte Zeilen: nur Hashes mit gültigem Format und Parametern nahe den aktuellen werden übernommen,
+ * alles andere landet als {@code INVALID} mit Grund im Report.
+ */
+@QuarkusTest
+@WithTestResource(PostgresResource.class)
+class UserImportServiceTest {
+
+    /** Gültiges Argon2id-Salt/Hash-Paar; die Parameter davor werden je Zeile variiert. */
+    private static final String ARGON2_SALT_AND_HASH = "$c2FsdHNhbHRzYWx0c2FsdA$aGFzaGhhc2hoYXNoaGFzaGhhc2hoYXNoaGFzaGhhc2g";
+
+    @Inject
+    UserImportService importService;
+
+    @Test
+    void rejectsHashesOutsideTheBounds() throws IOException {
+        String bcrypt = BCrypt.hashpw("secret", BCrypt.gensalt(4));
+        ImportReport report = importRows(
+                row("$2a$31$" + bcrypt.substring(7)),
+                row(bcrypt.substring(0, bcrypt.length() - 2)),
+                row("$argon2id$v=19$m=4194304,t=1000000,p=1" + ARGON2_SALT_AND_HASH),
+                row("$argon2id$v=19$m=262144,t=2,p=1" + ARGON2_SALT_AND_HASH),
+                row("$argon2id$v=19$m,t=2,p=1" + ARGON2_SALT_AND_HASH),
+                row(bcrypt),
+                row("$argon2id$v=19$m=65536,t=3,p=4" + ARGON2_SALT_AND_HASH));
+
+        assertEquals(2, report.created());
+        assertEquals(5, report.invalid());
+        List<RowResult> invalid = report.results().stream().filter(r -> r.outcome() == Outcome.INVALID).toList();
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), invalid.stream().map(RowResult::line).toList());
+        assertTrue(invalid.get(0).error().contains("cost 31"), invalid.get(0).error());
+        assertTrue(invalid.get(1).error().startsWith("passwordHash is invalid"), invalid.get(1).error());
+        assertTrue(invalid.get(2).error().startsWith("passwordHash is invalid"), invalid.get(2).error());
+        assertTrue(invalid.get(3).error().contains("memory"), invalid.get(3).error());
+        assertTrue(invalid.get(4).error().startsWith("passwordHash is invalid"), invalid.get(4).error());
+    }
+
+    private ImportReport importRows(String... rows) throws IOException {
+        byte[] body = (String.join("\n", rows) + "\n").getBytes(StandardCharsets.UTF_8);
+        return importService.importUsers(new ByteArrayInputStream(body), false);
+    }
+
+    private static String row(String passwordHash) {
+        return "{\"email\":\"" + TestAccounts.newEmail("import") + "\",\"passwordHash\":\"" + passwordHash
+                + "\",\"salt\":\"c2FsdA==\",\"firstName\":\"Imported\",\"lastName\":\"User\"}";
+    }
+}
@@ -0,0 +1,62 @@
+package com.elysion.application.user;
+
+import com.elysion.domain.user.Importance;
+import com.elysion.domain.user.User;
+import com.elysion.domain.user.UserPreferenceView;
+import com.elysion.support.PostgresResource;
+import com.elysion.support.TestAccounts;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.common.WithTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Die Präferenz-Projektion darf nicht je Präferenz den Filter nachladen: unabhängig von der Anzahl
+ * Präferenzen genau ein Statement und keine Entities (Hibernate-Statistik).
+ */
+@QuarkusTest
+@WithTestResource(PostgresResource.class)
+class UserSustainabilityPrefServiceTest {
+
+    @Inject
+    UserSustainabilityPrefService prefService;
+
+    @Inject
+    TestAccounts accounts;
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    private User user;
+
+    @BeforeEach
+    void userWithAllFilters() {
+        accounts.seedFilters();
+        user = QuarkusTransaction.requiringNew().call(() ->
+                User.<User>findById(accounts.userId(accounts.register("prefs"))));
+        Map<String, Importance> preferences = Map.of(
+                "bio", Importance.IMPORTANT, "local", Importance.NOT_IMPORTANT, "vegan", Importance.VERY_IMPORTANT);
+        QuarkusTransaction.requiringNew().run(() -> prefService.setPreferences(user, preferences));
+    }
+
+    @Test
+    void viewsNeedOneStatement() {
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+
+        List<UserPreferenceView> views = QuarkusTransaction.requiringNew().call(() -> prefService.getPreferenceViews(user));
+
+        assertEquals(List.of("bio", "local", "vegan"), views.stream().map(UserPreferenceView::filterKey).toList());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+}
@@ -0,0 +1,324 @@
+package com.elysion.interfaces.user;
+
+import com.elysion.support.PgWireCounter;
+import com.elysion.support.PostgresResource;
+import com.elysion.support.TestAccounts;
+import com.elysion.support.TestAccounts.Account;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.quarkus.test.common.WithTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import io.restassured.specification.RequestSpecification;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.PUT;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ruft jeden Endpoint einmal im schlechtesten regulären Pfad auf (ungecachter Principal) und prüft die
+ * DB-Aktivität gegen sein {@link QueryBudget}. Statements und Transaktionen werden am Draht gezählt
+ * ({@link PgWireCounter}), also inklusive JDBC per {@code doWork} und reaktivem Client; Entities über die
+ * Hibernate-Statistik.
+ */
+@QuarkusTest
+@WithTestResource(PostgresResource.class)
+class QueryBudgetTest {
+
+    private static final List<Class<?>> RESOURCES = List.of(UserResource.class, UserEditProfileResource.class,
+            UserPreferenceResource.class, UserAdminResource.class, SustainabilityFilterResource.class);
+
+    PgWireCounter db;
+
+    @Inject
+    TestAccounts accounts;
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    @Inject
+    @CacheName("users-by-id")
+    Cache userCache;
+
+    @BeforeEach
+    void seed() {
+        accounts.seedFilters();
+    }
+
+    @Test
+    void everyEndpointDeclaresABudget() {
+        List<String> missing = RESOURCES.stream()
+                .flatMap(r -> Arrays.stream(r.getDeclaredMethods()))
+                .filter(QueryBudgetTest::isEndpoint)
+                .filter(m -> m.getAnnotation(QueryBudget.class) == null)
+                .map(m -> m.getDeclaringClass().getSimpleName() + "." + m.getName())
+                .toList();
+        assertEquals(List.of(), missing);
+    }
+
+    // ---- /auth ----
+
+    @Test
+    void register() {
+        String email = TestAccounts.newEmail("budget");
+        assertBudget(UserResource.class, "register", () -> given().contentType(ContentType.JSON)
+                .body(Map.of("email", email, "password", TestAccounts.PASSWORD, "firstName", "A", "lastName", "B"))
+                .post("/auth/register").then().statusCode(201));
+    }
+
+    @Test
+    void login() {
+        String email = accounts.register("budget");
+        accounts.confirm(email);
+        assertBudget(UserResource.class, "login", () -> given().contentType(ContentType.JSON)
+                .body(Map.of("email", email, "password", TestAccounts.PASSWORD))
+                .post("/auth/login").then().statusCode(200));
+    }
+
+    @Test
+    void confirmEmail() {
+        String token = accounts.latestToken(accounts.register("budget"));
+        assertBudget(UserResource.class, "confirmEmail", () ->
+                given().queryParam("token", token).get("/auth/confirm-email").then().statusCode(200));
+    }
+
+    @Test
+    void resendActivation() {
+        String email = accounts.register("budget");
+        assertBudget(UserResource.class, "resendActivation", () ->
+                given().queryParam("email", email).post("/auth/resend-activation").then().statusCode(200));
+    }
+
+    @Test
+    void loginWithIdent() {
+        String token = accounts.confirm(accounts.register("budget"));
+        assertBudget(UserResource.class, "loginWithIdent", () ->
+                given().queryParam("token", token).post("/auth/login-ident").then().statusCode(200));
+    }
+
+    // ---- /users ----
+
+    @Test
+    void changeEmail() {
+        Account user = accounts.activeUser("budget");
+        assertBudget(UserEditProfileResource.class, "changeEmail", () -> as(user).contentType(ContentType.JSON)
+                .body(Map.of("newEmail", TestAccounts.newEmail("changed")))
+                .put("/users/email").then().statusCode(200));
+    }
+
+    @Test
+    void changePassword() {
+        Account user = accounts.activeUser("budget");
+        assertBudget(UserEditProfileResource.class, "changePassword", () -> as(user).contentType(ContentType.JSON)
+                .body(Map.of("currentPassword", TestAccounts.PASSWORD, "newPassword", TestAccounts.PASSWORD))
+                .put("/users/password").then().statusCode(200));
+    }
+
+    @Test
+    void changeProfile() {
+        Account user = accounts.activeUser("budget");
+        assertBudget(UserEditProfileResource.class, "changeProfile", () -> as(user).contentType(ContentType.JSON)
+                .body(Map.of("firstName", "Alice", "lastName", "Doe"))
+                .put("/users/profile").then().statusCode(200));
+    }
+
+    @Test
+    void me() {
+        Account user = accounts.activeUser("budget");
+        assertBudget(UserEditProfileResource.class, "me", () -> as(user).get("/users/me").then().statusCode(200));
+    }
+
+    // ---- /users/preferences ----
+
+    @Test
+    void getAll() {
+        Account user = userWithPreferences();
+        assertBudget(UserPreferenceResource.class, "getAll", () ->
+                as(user).get("/users/preferences").then().statusCode(200));
+    }
+
+    @Test
+    void getMap() {
+        Account user = userWithPreferences();
+        assertBudget(UserPreferenceResource.class, "getMap", () ->
+                as(user).get("/users/preferences/map").then().statusCode(200));
+    }
+
+    @Test
+    void getCompact() {
+        Account user = userWithPreferences();
+        assertBudget(UserPreferenceResource.class, "getCompact", () ->
+                as(user).get("/users/preferences/compact").then().statusCode(200));
+    }
+
+    @Test
+    void setPreferences() {
+        Account user = accounts.activeUser("budget");
+        assertBudget(UserPreferenceResource.class, "setPreferences", () -> as(user).contentType(ContentType.JSON)
+                .body(Map.of("bio", "IMPORTANT", "vegan", "VERY_IMPORTANT"))
+                .put("/users/preferences").then().statusCode(200));
+    }
+
+    @Test
+    void getOne() {
+        Account user = userWithPreferences();
+        assertBudget(UserPreferenceResource.class, "getOne", () ->
+                as(user).get("/users/preferences/bio").then().statusCode(200));
+    }
+
+    @Test
+    void setPreference() {
+        Account user = userWithPreferences();
+        assertBudget(UserPreferenceResource.class, "setPreference", () -> as(user).contentType(ContentType.JSON)
+                .body(Map.of("importance", "NOT_IMPORTANT"))
+                .put("/users/preferences/bio").then().statusCode(200));
+    }
+
+    @Test
+    void deletePreference() {
+        Account user = userWithPreferences();
+        assertBudget(UserPreferenceResource.class, "deletePreference", () ->
+                as(user).delete("/users/preferences/bio").then().statusCode(204));
+    }
+
+    // ---- /admin, /filters ----
+
+    @Test
+    void listUsers() {
+        Account admin = accounts.admin();
+        assertBudget(UserAdminResource.class, "listUsers", () ->
+                as(admin).queryParam("limit", 5).get("/admin/users").then().statusCode(200));
+    }
+
+    @Test
+    void exportUsers() {
+        Account admin = accounts.admin();
+        assertBudget(UserAdminResource.class, "exportUsers", () ->
+                as(admin).queryParam("format", "csv").get("/admin/users/export").then().statusCode(200));
+    }
+
+    @Test
+    void importUsers() {
+        Account admin = accounts.admin();
+        String body = Stream.of(TestAccounts.newEmail("import"), TestAccounts.newEmail("import"))
+                .map(email -> "{\"email\":\"" + email + "\",\"password\":\"" + TestAccounts.PASSWORD
+                        + "\",\"firstName\":\"Imported\",\"lastName\":\"User\"}")
+                .reduce("", (a, b) -> a + b + "\n");
+        assertBudget(UserAdminResource.class, "importUsers", () -> as(admin).contentType("application/x-ndjson")
+                .body(body).post("/admin/users/import").then().statusCode(200));
+    }
+
+    @Test
+    void changeRoles() {
+        Account admin = accounts.admin();
+        Account user = accounts.activeUser("budget");
+        assertBudget(UserAdminResource.class, "changeRoles", () -> as(admin).contentType(ContentType.JSON)
+                .body(Map.of("ids", List.of(user.id(), admin.id()), "role", "Seller"))
+                .put("/admin/users/role").then().statusCode(200));
+    }
+
+    @Test
+    void changeActivation() {
+        Account admin = accounts.admin();
+        Account user = accounts.activeUser("budget");
+        assertBudget(UserAdminResource.class, "changeActivation", () -> as(admin).contentType(ContentType.JSON)
+                .body(Map.of("ids", List.of(user.id()), "active", false))
+                .put("/admin/users/activation").then().statusCode(200));
+    }
+
+    @Test
+    void makeSeller() {
+        Account admin = accounts.admin();
+        Account user = accounts.activeUser("budget");
+        assertBudget(UserAdminResource.class, "makeSeller", () ->
+                as(admin).put("/admin/users/" + user.id() + "/role/seller").then().statusCode(200));
+    }
+
+    @Test
+    void makeAdmin() {
+        Account admin = accounts.admin();
+        Account user = accounts.activeUser("budget");
+        assertBudget(UserAdminResource.class, "makeAdmin", () -> as(admin).contentType(ContentType.JSON)
+                .body(Map.of("adminPassword", TestAccounts.PASSWORD))
+                .put("/admin/users/" + user.id() + "/role/admin").then().statusCode(200));
+    }
+
+    @Test
+    void reloadFilters() {
+        Account admin = accounts.admin();
+        assertBudget(UserAdminResource.class, "reloadFilters", () ->
+                as(admin).post("/admin/filters/reload").then().statusCode(200));
+    }
+
+    @Test
+    void getAllFilters() {
+        assertBudget(SustainabilityFilterResource.class, "getAllFilters", () ->
+                given().get("/filters").then().statusCode(200));
+    }
+
+    // ---- Hilfen ----
+
+    private Account userWithPreferences() {
+        Account user = accounts.activeUser("budget");
+        as(user).contentType(ContentType.JSON)
+                .body(Map.of("bio", "IMPORTANT", "vegan", "VERY_IMPORTANT"))
+                .put("/users/preferences").then().statusCode(200);
+        return user;
+    }
+
+    private static RequestSpecification as(Account account) {
+        return given().auth().oauth2(account.jwt());
+    }
+
+    /**
+     * Führt {@code call} mit leerem Principal-Cache aus und vergleicht die gezählte DB-Aktivität
+     * mit dem {@link QueryBudget} von {@code resource.method}.
+     */
+    private void assertBudget(Class<?> resource, String method, Runnable call) {
+        QueryBudget budget = Arrays.stream(resource.getDeclaredMethods())
+                .filter(m -> m.getName().equals(method) && isEndpoint(m))
+                .findFirst()
+                .map(m -> m.getAnnotation(QueryBudget.class))
+                .orElse(null);
+        assertNotNull(budget, resource.getSimpleName() + "." + method + " has no @QueryBudget");
+
+        userCache.invalidateAll().await().indefinitely();
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+        db.reset();
+
+        call.run();
+
+        String endpoint = resource.getSimpleName() + "." + method;
+        check(endpoint, "statements", db.statements(), budget.statements());
+        check(endpoint, "entities", (int) statistics.getEntityLoadCount(), budget.entities());
+        check(endpoint, "transactions", db.transactions(), budget.transactions());
+    }
+
+    private void check(String endpoint, String kind, int actual, int limit) {
+        if (limit < 0) return;
+        assertTrue(actual <= limit, endpoint + ": " + kind + " " + actual + " > " + limit
+                + ", statements: " + db.statementLog());
+    }
+
+    private static boolean isEndpoint(Method m) {
+        return m.isAnnotationPresent(GET.class) || m.isAnnotationPresent(POST.class)
+                || m.isAnnotationPresent(PUT.class) || m.isAnnotationPresent(DELETE.class);
+    }
+}
@@ -0,0 +1,76 @@
+package com.elysion.interfaces.user;
+
+import com.elysion.support.PostgresResource;
+import com.elysion.support.TestAccounts;
+import com.elysion.support.TestAccounts.Account;
+import io.quarkus.test.common.WithTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.not;
+
+/**
+ * Admin-Rechte per Step-up: nur für Admins, geprüft gegen den aktuellen Hash in der DB. Passwort-Hash und Salt
+ * tauchen in keiner Antwort auf.
+ */
+@QuarkusTest
+@WithTestResource(PostgresResource.class)
+class UserAdminResourceTest {
+
+    @Inject
+    TestAccounts accounts;
+
+    @Test
+    void makeAdminRequiresAdminRole() {
+        Account user = accounts.activeUser("stepup");
+        Account target = accounts.activeUser("stepup");
+
+        makeAdmin(user, target, TestAccounts.PASSWORD).then().statusCode(403);
+    }
+
+    @Test
+    void makeAdminChecksCurrentPassword() {
+        Account admin = accounts.admin();
+        Account target = accounts.activeUser("stepup");
+
+        makeAdmin(admin, target, "wrong-password").then().statusCode(401);
+        makeAdmin(admin, target, TestAccounts.PASSWORD).then().statusCode(200);
+    }
+
+    @Test
+    void stepUpUsesChangedPassword() {
+        Account admin = accounts.admin();
+        Account target = accounts.activeUser("stepup");
+        // Principal in den Cache legen, dann das Passwort ändern: der Step-up muss das neue verlangen
+        given().auth().oauth2(admin.jwt()).get("/users/me").then().statusCode(200);
+        given().auth().oauth2(admin.jwt()).contentType(ContentType.JSON)
+                .body(Map.of("currentPassword", TestAccounts.PASSWORD, "newPassword", "Changed-Passw0rd!"))
+                .put("/users/password").then().statusCode(200);
+
+        makeAdmin(admin, target, TestAccounts.PASSWORD).then().statusCode(401);
+        makeAdmin(admin, target, "Changed-Passw0rd!").then().statusCode(200);
+    }
+
+    @Test
+    void meHasNoCredentials() {
+        Account user = accounts.activeUser("stepup");
+
+        given().auth().oauth2(user.jwt()).get("/users/me").then()
+                .statusCode(200)
+                .body("$", not(hasKey("passwordHash")))
+                .body("$", not(hasKey("salt")));
+    }
+
+    private static Response makeAdmin(Account acting, Account target, String password) {
+        return given().auth().oauth2(acting.jwt()).contentType(ContentType.JSON)
+                .body(Map.of("adminPassword", password))
+                .put("/admin/users/" + target.id() + "/role/admin");
+    }
+}
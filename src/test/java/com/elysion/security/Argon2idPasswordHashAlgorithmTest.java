@@ -0,0 +1,57 @@
+package com.elysion.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Argon2idPasswordHashAlgorithmTest {
+
+    private final Argon2idPasswordHashAlgorithm argon2 = new Argon2idPasswordHashAlgorithm(1024, 2, 1);
+
+    @Test
+    void roundTrip() {
+        String hash = argon2.hash("secret");
+        assertTrue(hash.startsWith("$argon2id$v=19$m=1024,t=2,p=1$"), hash);
+        assertTrue(argon2.supports(hash));
+        assertTrue(argon2.verify("secret", hash));
+        assertFalse(argon2.verify("wrong", hash));
+    }
+
+    @Test
+    void weakerParametersNeedRehash() {
+        String weaker = new Argon2idPasswordHashAlgorithm(1024, 1, 1).hash("secret");
+        String smaller = new Argon2idPasswordHashAlgorithm(512, 2, 1).hash("secret");
+        assertTrue(argon2.isWeakerThanCurrent(weaker));
+        assertTrue(argon2.isWeakerThanCurrent(smaller));
+        assertFalse(argon2.isWeakerThanCurrent(argon2.hash("secret")));
+    }
+
+    @Test
+    void rejectsMalformedHashes() {
+        String valid = argon2.hash("secret");
+        String saltAndHash = valid.substring(valid.indexOf("$", "$argon2id$v=19$".length()));
+        for (String malformed : new String[]{
+                "$argon2id$v=19$m,t=2,p=1" + saltAndHash,
+                "$argon2id$v=19$m=abc,t=2,p=1" + saltAndHash,
+                "$argon2id$v=19$m=1024,t=2,x=1" + saltAndHash,
+                "$argon2id$v=16$m=1024,t=2,p=1" + saltAndHash,
+                "$argon2id$v=19$m=1024,t=2,p=1$!!!$!!!",
+                "$argon2id$v=19$m=1024,t=2,p=1",
+                "$argon2id$"}) {
+            assertThrows(IllegalArgumentException.class, () -> argon2.verify("secret", malformed), malformed);
+        }
+    }
+
+    @Test
+    void rejectsParametersAboveLimits() {
+        String valid = argon2.hash("secret");
+        String saltAndHash = valid.substring(valid.indexOf("$", "$argon2id$v=19$".length()));
+        for (String params : new String[]{"m=4194304,t=2,p=1", "m=1024,t=1000000,p=1", "m=1024,t=2,p=255",
+                "m=1024,t=0,p=1", "m=4,t=2,p=1"}) {
+            String hash = "$argon2id$v=19$" + params + saltAndHash;
+            assertThrows(IllegalArgumentException.class, () -> argon2.verify("secret", hash), params);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.elysion.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BCryptPasswordHashAlgorithmTest {
+
+    private final BCryptPasswordHashAlgorithm bcrypt = new BCryptPasswordHashAlgorithm(4);
+
+    @Test
+    void supportsAllBcryptRevisions() {
+        String hash = bcrypt.hash("secret");
+        for (String prefix : new String[]{"$2a$", "$2b$", "$2y$"}) {
+            assertTrue(bcrypt.supports(prefix + hash.substring(4)), prefix);
+        }
+        assertFalse(bcrypt.supports("$argon2id$v=19$m=65536,t=2,p=1$c2FsdA$aGFzaA"));
+        assertFalse(bcrypt.supports(null));
+    }
+
+    @Test
+    void verifiesRevisionsBAndY() {
+        String hash = bcrypt.hash("secret");
+        for (String prefix : new String[]{"$2b$", "$2y$"}) {
+            String foreign = prefix + hash.substring(4);
+            assertTrue(bcrypt.verify("secret", foreign), prefix);
+            assertFalse(bcrypt.verify("wrong", foreign), prefix);
+        }
+    }
+
+    @Test
+    void readsCostOfEveryRevision() {
+        assertEquals(12, BCryptPasswordHashAlgorithm.costOf("$2y$12$abcdefghijklmnopqrstuv"));
+        assertEquals(10, BCryptPasswordHashAlgorithm.costOf("$2$10$abcdefghijklmnopqrstuv"));
+        assertTrue(new BCryptPasswordHashAlgorithm(12).isWeakerThanCurrent("$2b$10$abcdefghijklmnopqrstuv"));
+    }
+
+    @Test
+    void parsesCostOnlyFromWellFormedHashes() {
+        String hash = bcrypt.hash("secret");
+        assertEquals(4, BCryptPasswordHashAlgorithm.parseCost(hash));
+        assertEquals(31, BCryptPasswordHashAlgorithm.parseCost("$2b$31$" + hash.substring(7)));
+        for (String malformed : new String[]{
+                hash.substring(0, hash.length() - 1),
+                hash + "x",
+                "$2a$32$" + hash.substring(7),
+                "$2a$03$" + hash.substring(7),
+                "$2x$04$" + hash.substring(7),
+                "$2a$4$" + hash.substring(7),
+                hash.substring(0, 10) + "!" + hash.substring(11)}) {
+            assertThrows(IllegalArgumentException.class, () -> BCryptPasswordHashAlgorithm.parseCost(malformed), malformed);
+        }
+    }
+}
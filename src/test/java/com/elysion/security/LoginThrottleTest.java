@@ -0,0 +1,62 @@
+package com.elysion.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Volle Tabelle: viele einmalige Schlüssel verdrängen keine gesperrten Accounts, und neue Schlüssel
+ * werden weiterhin gedrosselt statt durchgelassen.
+ */
+class LoginThrottleTest {
+
+    private final LoginThrottle throttle = new LoginThrottle();
+
+    @BeforeEach
+    void start() {
+        throttle.enabled = true;
+        throttle.accountCapacity = 5;
+        throttle.accountRefillPeriod = Duration.ofMinutes(1);
+        throttle.ipCapacity = 1_000_000;
+        throttle.ipRefillPeriod = Duration.ofMinutes(1);
+        throttle.lockoutThreshold = 3;
+        throttle.lockoutBase = Duration.ofMinutes(1);
+        throttle.lockoutMax = Duration.ofMinutes(15);
+        throttle.maxEntries = 100;
+        throttle.idleTimeout = Duration.ofMinutes(30);
+        throttle.registry = new SimpleMeterRegistry();
+        throttle.init();
+    }
+
+    @Test
+    void sprayDoesNotUnlockAccount() {
+        for (int i = 0; i < 3; i++) {
+            throttle.acquire("victim@example.com", null);
+            throttle.recordFailure("victim@example.com");
+        }
+        for (int i = 0; i < 10_000; i++) {
+            throttle.acquire("spray-" + i + "@example.com", null);
+        }
+        throttle.sweep();
+
+        LoginThrottledException e = assertThrows(LoginThrottledException.class,
+                () -> throttle.acquire("victim@example.com", null));
+        assertEquals("Account temporarily locked", e.getMessage());
+    }
+
+    @Test
+    void newKeysAreThrottledWhenFull() {
+        for (int i = 0; i < 1_000; i++) {
+            throttle.acquire("spray-" + i + "@example.com", null);
+        }
+        for (int i = 0; i < 5; i++) {
+            throttle.acquire("late@example.com", null);
+        }
+        assertThrows(LoginThrottledException.class, () -> throttle.acquire("late@example.com", null));
+    }
+}
@@ -0,0 +1,84 @@
+package com.elysion.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordHashingExecutorTest {
+
+    private final PasswordHashingExecutor executor = new PasswordHashingExecutor();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void start() {
+        executor.threads = Optional.of(1);
+        executor.queueSize = 4;
+        executor.maxWait = Duration.ofMillis(200);
+        executor.retryAfter = Duration.ofSeconds(1);
+        executor.registry = new SimpleMeterRegistry();
+        executor.init();
+    }
+
+    @AfterEach
+    void stop() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void returnsResult() {
+        assertEquals("hash", executor.submit("hash", () -> "hash"));
+    }
+
+    @Test
+    void rejectsAfterMaxWaitInsteadOfWaitingForTheQueue() throws InterruptedException {
+        CountDownLatch busy = new CountDownLatch(1);
+        Thread blocker = Thread.ofVirtual().start(() -> {
+            try {
+                executor.submit("hash", () -> {
+                    busy.countDown();
+                    awaitRelease();
+                    return null;
+                });
+            } catch (PasswordHashingRejectedException expected) {
+                // der Blocker selbst wartet länger als max-wait
+            }
+        });
+        assertTrue(busy.await(5, TimeUnit.SECONDS));
+
+        AtomicBoolean ran = new AtomicBoolean();
+        long start = System.nanoTime();
+        PasswordHashingRejectedException e = assertThrows(PasswordHashingRejectedException.class,
+                () -> executor.submit("verify", () -> ran.getAndSet(true)));
+        long waitedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(waitedMs < 1000, "waited " + waitedMs + " ms");
+        assertEquals(Duration.ofSeconds(1), e.getRetryAfter());
+
+        // der aufgegebene Job wird nach Freigabe des Pools nicht mehr ausgeführt
+        release.countDown();
+        blocker.join(5000);
+        assertEquals("after", executor.submit("hash", () -> "after"));
+        assertFalse(ran.get());
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.elysion.support;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * TCP-Proxy vor PostgreSQL, der mitzählt, was der Service tatsächlich an die DB schickt.
+ * <p>
+ * Gezählt wird auf Protokollebene: jede Ausführung ({@code Bind} im Extended Protocol, {@code Query} im Simple
+ * Protocol) ist ein Statement, jedes {@code BEGIN} eine Transaktion. Damit sind Hibernate, JDBC per
+ * {@code Session#doWork}, direkte Agroal-Verbindungen und der reaktive Client gleichermaßen erfasst.
+ * Transaktionssteuerung ({@code COMMIT}, {@code SET}, ...) und Typ-Abfragen der Treiber zählen nicht.
+ * Die Bytes werden unverändert weitergereicht; SSL wird nicht unterstützt ({@code sslmode=disable}).
+ */
+public final class PgWireCounter implements AutoCloseable {
+
+    private static final int SSL_REQUEST = 80877103;
+    private static final int GSSENC_REQUEST = 80877104;
+
+    private static final List<String> IGNORED = List.of(
+            "COMMIT", "END", "ROLLBACK", "SAVEPOINT", "RELEASE", "SET ", "SHOW ", "DISCARD", "DEALLOCATE");
+
+    private final ServerSocket server;
+    private final String targetHost;
+    private final int targetPort;
+    private final ExecutorService threads = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "pg-wire-counter");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final AtomicInteger statements = new AtomicInteger();
+    private final AtomicInteger transactions = new AtomicInteger();
+    private final Queue<String> log = new ConcurrentLinkedQueue<>();
+
+    private PgWireCounter(String targetHost, int targetPort) throws IOException {
+        this.server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        this.targetHost = targetHost;
+        this.targetPort = targetPort;
+        threads.execute(this::accept);
+    }
+
+    public static PgWireCounter start(String targetHost, int targetPort) throws IOException {
+        return new PgWireCounter(targetHost, targetPort);
+    }
+
+    public int port() {
+        return server.getLocalPort();
+    }
+
+    /** Setzt alle Zähler und das Statement-Log zurück. */
+    public void reset() {
+        statements.set(0);
+        transactions.set(0);
+        log.clear();
+    }
+
+    public int statements() {
+        return statements.get();
+    }
+
+    public int transactions() {
+        return transactions.get();
+    }
+
+    /** Die gezählten Statements seit dem letzten {@link #reset()}, für Fehlermeldungen. */
+    public List<String> statementLog() {
+        return List.copyOf(log);
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        threads.shutdownNow();
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                Socket client = server.accept();
+                Socket upstream = new Socket(targetHost, targetPort);
+                client.setTcpNoDelay(true);
+                upstream.setTcpNoDelay(true);
+                threads.execute(() -> copy(upstream, client));
+                threads.execute(() -> inspect(client, upstream));
+            } catch (IOException e) {
+                if (!server.isClosed()) {
+                    throw new IllegalStateException("Proxy connection failed", e);
+                }
+            }
+        }
+    }
+
+    /** Server -> Client: unverändert durchreichen. */
+    private static void copy(Socket from, Socket to) {
+        try (from; to) {
+            InputStream in = from.getInputStream();
+            OutputStream out = to.getOutputStream();
+            byte[] buffer = new byte[16 * 1024];
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, n);
+                out.flush();
+            }
+        } catch (IOException ignored) {
+            // Verbindung von einer Seite geschlossen
+        }
+    }
+
+    /** Client -> Server: Nachricht für Nachricht lesen, auswerten und weiterreichen. */
+    private void inspect(Socket from, Socket to) {
+        try (from; to) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(from.getInputStream()));
+            OutputStream out = to.getOutputStream();
+
+            // Startphase: Nachrichten ohne Typ-Byte (SSLRequest/GSSENCRequest, dann StartupMessage)
+            while (true) {
+                byte[] body = readBody(in, in.readInt());
+                forward(out, -1, body);
+                int code = ByteBuffer.wrap(body).getInt();
+                if (code != SSL_REQUEST && code != GSSENC_REQUEST) break;
+            }
+
+            Map<String, String> prepared = new HashMap<>();
+            int type;
+            while ((type = in.read()) >= 0) {
+                byte[] body = readBody(in, in.readInt());
+                // vor dem Weiterreichen zählen: wenn die Antwort beim Client ist, stimmt der Zähler
+                switch (type) {
+                    case 'P' -> {
+                        Cursor c = new Cursor(body);
+                        String name = c.cstring();
+                        prepared.put(name, c.cstring());
+                    }
+                    case 'B' -> {
+                        Cursor c = new Cursor(body);
+                        c.cstring(); // Portal
+                        record(prepared.get(c.cstring()));
+                    }
+                    case 'Q' -> record(new Cursor(body).cstring());
+                    default -> { }
+                }
+                forward(out, type, body);
+            }
+        } catch (EOFException ignored) {
+            // Client hat die Verbindung geschlossen
+        } catch (IOException ignored) {
+            // Verbindung von einer Seite geschlossen
+        }
+    }
+
+    private void record(String sql) {
+        if (sql == null) return;
+        String s = sql.strip();
+        if (s.isEmpty()) return;
+        String upper = s.toUpperCase(Locale.ROOT);
+        if (upper.startsWith("BEGIN") || upper.startsWith("START TRANSACTION")) {
+            transactions.incrementAndGet();
+            return;
+        }
+        if (IGNORED.stream().anyMatch(upper::startsWith)) return;
+        if (upper.contains("PG_CATALOG.") || upper.contains(" PG_TYPE")) return; // Typ-Metadaten der Treiber
+        statements.incrementAndGet();
+        log.add(s);
+    }
+
+    private static byte[] readBody(DataInputStream in, int length) throws IOException {
+        byte[] body = new byte[length - 4];
+        in.readFully(body);
+        return body;
+    }
+
+    private static void forward(OutputStream out, int type, byte[] body) throws IOException {
+        ByteBuffer frame = ByteBuffer.allocate((type >= 0 ? 1 : 0) + 4 + body.length);
+        if (type >= 0) frame.put((byte) type);
+        frame.putInt(body.length + 4).put(body);
+        out.write(frame.array());
+        out.flush();
+    }
+
+    /** Liest nullterminierte Strings aus einem Nachrichten-Body. */
+    private static final class Cursor {
+        private final byte[] data;
+        private int pos;
+
+        Cursor(byte[] data) {
+            this.data = data;
+        }
+
+        String cstring() {
+            int start = pos;
+            while (pos < data.length && data[pos] != 0) pos++;
+            String s = new String(data, start, pos - start, StandardCharsets.UTF_8);
+            pos++;
+            return s;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.elysion.support;
+
+import io.quarkus.test.common.QuarkusTestResourceLifecycleManager;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+/**
+ * Eingebettete PostgreSQL-Instanz für {@code @QuarkusTest}s, erreichbar nur über einen {@link PgWireCounter}.
+ * JDBC-Pool und reaktiver Client zeigen beide auf den Proxy; Tests bekommen ihn per Feld vom Typ
+ * {@link PgWireCounter} injiziert.
+ */
+public class PostgresResource implements QuarkusTestResourceLifecycleManager {
+
+    private EmbeddedPostgres postgres;
+    private PgWireCounter counter;
+
+    @Override
+    public Map<String, String> start() {
+        try {
+            postgres = EmbeddedPostgres.builder().start();
+            counter = PgWireCounter.start("localhost", postgres.getPort());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start embedded PostgreSQL", e);
+        }
+        return Map.of(
+                "quarkus.datasource.jdbc.url",
+                "jdbc:postgresql://localhost:" + counter.port() + "/postgres?sslmode=disable",
+                "quarkus.datasource.reactive.url", "postgresql://localhost:" + counter.port() + "/postgres",
+                "quarkus.datasource.username", "postgres",
+                "quarkus.datasource.password", "postgres");
+    }
+
+    @Override
+    public void inject(TestInjector testInjector) {
+        testInjector.injectIntoFields(counter, new TestInjector.MatchesType(PgWireCounter.class));
+    }
+
+    @Override
+    public void stop() {
+        try {
+            if (counter != null) counter.close();
+            if (postgres != null) postgres.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
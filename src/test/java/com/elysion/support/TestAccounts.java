@@ -0,0 +1,129 @@
+package com.elysion.support;
+
+import com.elysion.application.user.SustainabilityFilterService;
+import io.agroal.api.AgroalDataSource;
+import io.restassured.http.ContentType;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static io.restassured.RestAssured.given;
+
+/**
+ * Legt Test-User über die öffentliche API an und liest, was ein User sonst per Mail bekäme,
+ * direkt aus {@code mail_outbox} (der Outbox-Versand ist im Test-Profil aus).
+ */
+@ApplicationScoped
+public class TestAccounts {
+
+    public static final String PASSWORD = "Test-Passw0rd!";
+
+    /** Filter-Keys, die {@link #seedFilters()} anlegt. */
+    public static final String[] FILTER_KEYS = {"bio", "local", "vegan"};
+
+    private static final Pattern TOKEN_IN_LINK = Pattern.compile("token=([0-9a-fA-F-]{36})");
+
+    /** Eingeloggter, aktivierter User. */
+    public record Account(UUID id, String email, String jwt) {}
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    @Inject
+    SustainabilityFilterService filterService;
+
+    public static String newEmail(String prefix) {
+        return prefix + "-" + UUID.randomUUID() + "@example.com";
+    }
+
+    /** Registriert einen (noch nicht aktivierten) User und gibt seine E-Mail-Adresse zurück. */
+    public String register(String prefix) {
+        String email = newEmail(prefix);
+        given().contentType(ContentType.JSON)
+                .body(Map.of("email", email, "password", PASSWORD, "firstName", "Test", "lastName", "User"))
+                .post("/auth/register")
+                .then().statusCode(201);
+        return email;
+    }
+
+    /** Bestätigt die Aktivierungsmail; gibt das (jetzt bestätigte) Ident-Token zurück. */
+    public String confirm(String email) {
+        String token = latestToken(email);
+        given().queryParam("token", token).get("/auth/confirm-email").then().statusCode(200);
+        return token;
+    }
+
+    /** Registrierter, aktivierter und eingeloggter User. */
+    public Account activeUser(String prefix) {
+        String email = register(prefix);
+        confirm(email);
+        return new Account(userId(email), email, login(email));
+    }
+
+    /** Wie {@link #activeUser(String)}, danach per SQL zum Admin gemacht (Login erneut, damit die Rolle im JWT steht). */
+    public Account admin() {
+        Account user = activeUser("admin");
+        execute("UPDATE users SET role = 'Admin' WHERE id = '" + user.id() + "'");
+        return new Account(user.id(), user.email(), login(user.email()));
+    }
+
+    public String login(String email) {
+        return given().contentType(ContentType.JSON)
+                .body(Map.of("email", email, "password", PASSWORD))
+                .post("/auth/login")
+                .then().statusCode(200)
+                .extract().path("token");
+    }
+
+    /** Roh-Token aus dem Link der zuletzt an {@code recipient} geschriebenen Mail. */
+    public String latestToken(String recipient) {
+        String body = queryString(
+                "SELECT body FROM mail_outbox WHERE recipient = ? ORDER BY created_at DESC LIMIT 1", recipient);
+        if (body == null) throw new IllegalStateException("No mail for " + recipient);
+        Matcher m = TOKEN_IN_LINK.matcher(body);
+        if (!m.find()) throw new IllegalStateException("No token in mail for " + recipient);
+        return m.group(1);
+    }
+
+    public UUID userId(String email) {
+        return UUID.fromString(queryString("SELECT id::text FROM users WHERE email = ?", email));
+    }
+
+    /** Legt die Filter aus {@link #FILTER_KEYS} an (falls nötig) und lädt den Katalog neu. */
+    public void seedFilters() {
+        for (String key : FILTER_KEYS) {
+            execute("INSERT INTO sustainability_filter (id, filter_key, label, icon, description, examples, importance) "
+                    + "VALUES ('" + UUID.randomUUID() + "', '" + key + "', '" + key + "', 'leaf', '" + key + "', '"
+                    + key + "', 'IMPORTANT') ON CONFLICT DO NOTHING");
+        }
+        filterService.reload();
+    }
+
+    public void execute(String sql) {
+        try (Connection c = dataSource.getConnection(); Statement st = c.createStatement()) {
+            st.execute(sql);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String queryString(String sql, String param) {
+        try (Connection c = dataSource.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setString(1, param);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}